@@ -2,6 +2,7 @@ package wiki.xyh;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Author:XYH
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *              具体解析逻辑全部委托给 extract-binary-text 模块中的工具类。
  */
 @SpringBootApplication
+@EnableScheduling
 public class BinaryTextApiApplication {
 
     /**
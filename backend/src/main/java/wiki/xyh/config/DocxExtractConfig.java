@@ -0,0 +1,26 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.DocxStreamExtractor;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: DOCX 提取配置，按 extract.docx.* 设置 DocxStreamExtractor 的默认行为。
+ */
+@Configuration
+public class DocxExtractConfig {
+
+    private final ExtractProperties properties;
+
+    public DocxExtractConfig(ExtractProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void apply() {
+        DocxStreamExtractor.setIncludeAuxiliaryParts(properties.getDocx().isIncludeAuxiliaryParts());
+    }
+}
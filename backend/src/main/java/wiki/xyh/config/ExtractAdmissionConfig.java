@@ -0,0 +1,43 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.ExtractAdmission;
+import wiki.xyh.utils.ExtractMetrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 解析准入控制配置，按 extract.admission.* 创建在途内存预算与按格式分舱的并发上限。
+ */
+@Configuration
+public class ExtractAdmissionConfig {
+
+    /**
+     * 解析准入控制，在途文件数与估算成本注册为 extract.admission.inflight.* 指标。
+     *
+     * @param properties 提取配置
+     * @return 准入控制
+     */
+    @Bean
+    public ExtractAdmission extractAdmission(ExtractProperties properties) {
+        ExtractProperties.Admission admission = properties.getAdmission();
+        long maxInflightCost = admission.getMaxInflightCost() > 0
+                ? admission.getMaxInflightCost()
+                : Runtime.getRuntime().maxMemory() / 2;
+
+        Map<ExtractAdmission.Bulkhead, Integer> concurrency = new EnumMap<>(ExtractAdmission.Bulkhead.class);
+        for (Map.Entry<String, Integer> entry : admission.getBulkheads().entrySet()) {
+            concurrency.put(ExtractAdmission.Bulkhead.valueOf(entry.getKey().toUpperCase(Locale.ROOT)), entry.getValue());
+        }
+
+        ExtractAdmission extractAdmission =
+                new ExtractAdmission(maxInflightCost, concurrency, admission.getRetryAfterSeconds());
+        ExtractMetrics.bindAdmission(extractAdmission);
+        return extractAdmission;
+    }
+}
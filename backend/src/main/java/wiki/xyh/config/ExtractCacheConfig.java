@@ -0,0 +1,28 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.ExtractMetrics;
+import wiki.xyh.utils.ExtractResultCache;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 提取结果缓存配置，按 extract.cache.max-bytes 创建进程内的内容寻址缓存。
+ */
+@Configuration
+public class ExtractCacheConfig {
+
+    /**
+     * 提取结果缓存，key 为文件内容的 SHA-256 摘要。命中率等统计注册为 extract.cache.* 指标。
+     *
+     * @param properties 提取配置
+     * @return 结果缓存
+     */
+    @Bean
+    public ExtractResultCache extractResultCache(ExtractProperties properties) {
+        ExtractResultCache cache = new ExtractResultCache(properties.getCache().getMaxBytes());
+        ExtractMetrics.bindCache(cache);
+        return cache;
+    }
+}
@@ -0,0 +1,148 @@
+package wiki.xyh.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.FallbackRouter;
+import wiki.xyh.utils.OfdTextExtractor;
+import wiki.xyh.utils.PDFWatermarkRemover;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 提取线程池配置，为服务端并行批量提取提供一个大小可配置、队列有界的专用线程池，
+ *              避免占用 Tomcat 请求线程，也避免无限排队拖垮内存。
+ */
+@Configuration
+@EnableConfigurationProperties(ExtractProperties.class)
+public class ExtractExecutorConfig {
+
+    /**
+     * 文本提取专用线程池。
+     * 队列满时采用 AbortPolicy 拒绝提交，ExtractService 为被拒绝的文件返回错误结果：
+     * 若由请求线程自己执行（CallerRunsPolicy），该文件既不受单文件期限约束，也会阻塞后续文件的提交。
+     *
+     * @param properties 提取配置
+     * @return 提取线程池
+     */
+    @Bean(name = "extractExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService extractExecutor(ExtractProperties properties) {
+        ExtractProperties.Batch batch = properties.getBatch();
+        int parallelism = Math.max(1, batch.getParallelism());
+        return new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, batch.getQueueCapacity())),
+                namedThreadFactory("extract-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 异步提取任务线程池。排队的任务已经持久化在任务目录中，内存队列只保存任务 id，因此不设上限，
+     * 排队数量由 ExtractJobService 按 extract.jobs.max-queued 控制。
+     *
+     * @param properties 提取配置
+     * @return 异步任务线程池
+     */
+    @Bean(name = "extractJobExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService extractJobExecutor(ExtractProperties properties) {
+        int workers = Math.max(1, properties.getJobs().getWorkers());
+        return new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                namedThreadFactory("extract-job-"));
+    }
+
+    /**
+     * UNKNOWN 类型回退路由的并行线程池，仅在 extract.fallback.parallel=true 时创建，
+     * 并注册到 FallbackRouter。队列满时由提交线程自行解析，退化为串行。
+     *
+     * @param properties 提取配置
+     * @return 回退线程池
+     */
+    @Bean(name = "extractFallbackExecutor", destroyMethod = "shutdownNow")
+    @ConditionalOnProperty(prefix = "extract.fallback", name = "parallel", havingValue = "true")
+    public ExecutorService extractFallbackExecutor(ExtractProperties properties) {
+        int parallelism = Math.max(1, properties.getFallback().getParallelism());
+        ExecutorService executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(parallelism * 4),
+                namedThreadFactory("extract-fallback-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        FallbackRouter.setParallelExecutor(executor);
+        return executor;
+    }
+
+    /**
+     * 大 PDF 按页分段并行提取的线程池，注册到 PDFWatermarkRemover。调用线程自己也处理分段，
+     * 因此线程数为 parallelism - 1；所有 PDF 共用该池，队列满时由调用线程自行处理，退化为单线程。
+     *
+     * @param properties 提取配置
+     * @return PDF 分段线程池
+     */
+    @Bean(name = "extractPdfExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService extractPdfExecutor(ExtractProperties properties) {
+        ExtractProperties.Pdf pdf = properties.getPdf();
+        int threads = Math.max(1, pdf.getParallelism() - 1);
+        ExecutorService executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 4),
+                namedThreadFactory("extract-pdf-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        PDFWatermarkRemover.setParallelExecutor(executor, pdf.getParallelism(), pdf.getParallelPageThreshold());
+        return executor;
+    }
+
+    /**
+     * 多页 OFD 按页分段并行提取的线程池，注册到 OfdTextExtractor。与 PDF 分段线程池相同，
+     * 调用线程自己也处理分段，队列满时由调用线程自行处理。
+     *
+     * @param properties 提取配置
+     * @return OFD 分段线程池
+     */
+    @Bean(name = "extractOfdExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService extractOfdExecutor(ExtractProperties properties) {
+        ExtractProperties.Ofd ofd = properties.getOfd();
+        int threads = Math.max(1, ofd.getParallelism() - 1);
+        ExecutorService executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 4),
+                namedThreadFactory("extract-ofd-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        OfdTextExtractor.setParallelExecutor(executor, ofd.getParallelism(), ofd.getParallelPageThreshold());
+        return executor;
+    }
+
+    /**
+     * 创建带名称前缀的守护线程工厂，便于在线程栈中定位提取任务。
+     *
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     */
+    static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,425 @@
+package wiki.xyh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 文本提取相关的可配置项，统一映射 application.yml 中 extract.* 前缀。
+ */
+@Data
+@ConfigurationProperties(prefix = "extract")
+public class ExtractProperties {
+
+    /**
+     * 批量提取（/api/extract/batch）相关配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 提取结果缓存相关配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 大文件落盘解析相关配置
+     */
+    private Spool spool = new Spool();
+
+    /**
+     * 整体读入堆内存的解析器的单文件大小上限
+     */
+    private InHeap inHeap = new InHeap();
+
+    /**
+     * 异步提取任务相关配置
+     */
+    private Jobs jobs = new Jobs();
+
+    /**
+     * UNKNOWN 类型回退路由相关配置
+     */
+    private Fallback fallback = new Fallback();
+
+    /**
+     * 乱码判定相关配置
+     */
+    private Mess mess = new Mess();
+
+    /**
+     * HtmlUnit 渲染（readHTML）相关配置
+     */
+    private Render render = new Render();
+
+    /**
+     * 表格（XLS / XLSX）提取上限
+     */
+    private Sheet sheet = new Sheet();
+
+    /**
+     * DOCX 提取相关配置
+     */
+    private Docx docx = new Docx();
+
+    /**
+     * PDF 提取相关配置
+     */
+    private Pdf pdf = new Pdf();
+
+    /**
+     * OFD 提取相关配置
+     */
+    private Ofd ofd = new Ofd();
+
+    /**
+     * 解析准入控制（在途内存预算、按格式分舱的并发上限）
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 子进程解析（崩溃 / OOM 隔离）相关配置
+     */
+    private Worker worker = new Worker();
+
+    /**
+     * 解析期限相关配置
+     */
+    private Deadline deadline = new Deadline();
+
+    @Data
+    public static class Batch {
+
+        /**
+         * 提取线程池大小，默认等于 CPU 核数
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 线程池等待队列容量，队列满时拒绝提交，被拒绝的文件返回错误结果
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * 单个文件的解析期限（毫秒），从该文件真正开始解析时计时；到期返回部分内容，
+         * 再超出准入排队时间与 5 秒宽限仍未结束时放弃等待并返回超时错误
+         */
+        private long fileTimeoutMs = 60_000L;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 结果缓存的字节预算，小于等于 0 表示关闭缓存
+         */
+        private long maxBytes = 256L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Spool {
+
+        /**
+         * 超过该大小（字节）的上传先落盘为临时文件，再以文件形式交给解析器
+         */
+        private long thresholdBytes = 16L * 1024 * 1024;
+
+        /**
+         * 临时文件目录，为空时使用 java.io.tmpdir
+         */
+        private String dir;
+    }
+
+    @Data
+    public static class InHeap {
+
+        /**
+         * 按类型（小写，如 txt / rtf / doc / msg / ppt / unknown）配置的单文件上限（字节），超出时不解析并返回错误；
+         * 未列出的类型（PDF / XLS(X) / DOCX / PPTX / OFD / EPUB / HTML 等流式或随机访问的解析器）只受上传上限约束。
+         * TXT 只在未限制字符数时整体解码，带 maxChars 的预览请求不受此限制
+         */
+        private Map<String, Long> maxBytes = defaultMaxBytes();
+
+        private static Map<String, Long> defaultMaxBytes() {
+            Map<String, Long> limits = new LinkedHashMap<>();
+            long limit = 50L * 1024 * 1024;
+            limits.put("txt", limit);
+            limits.put("rtf", limit);
+            limits.put("doc", limit);
+            limits.put("msg", limit);
+            limits.put("ppt", limit);
+            limits.put("unknown", limit);
+            return limits;
+        }
+    }
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * 任务目录，每个任务一个子目录（input.bin / job.properties / result.txt），重启后从这里恢复
+         */
+        private String dir = System.getProperty("java.io.tmpdir") + "/extract-jobs";
+
+        /**
+         * 异步任务工作线程数，与同步接口的提取线程池相互独立
+         */
+        private int workers = 2;
+
+        /**
+         * 最多允许排队（未开始）的任务数，超出时拒绝提交
+         */
+        private int maxQueued = 1000;
+
+        /**
+         * 已结束任务（成功 / 失败）的保留时长（毫秒），过期后删除任务目录
+         */
+        private long retentionMs = 24L * 60 * 60 * 1000;
+
+        /**
+         * 过期任务清理间隔（毫秒）
+         */
+        private long cleanupIntervalMs = 10L * 60 * 1000;
+    }
+
+    @Data
+    public static class Fallback {
+
+        /**
+         * 是否并行尝试多个候选解析器，采信后取消其余候选
+         */
+        private boolean parallel = false;
+
+        /**
+         * 并行回退线程池大小
+         */
+        private int parallelism = 4;
+    }
+
+    @Data
+    public static class Mess {
+
+        /**
+         * 语料主要语言：zh / en，决定乱码判定使用的内置阈值
+         */
+        private String language = "zh";
+
+        /**
+         * 主文字（zh 为汉字，en 为拉丁字母）最低占比，为空时使用内置值
+         */
+        private Double minPrimaryRatio;
+
+        /**
+         * 次要文字（zh 为拉丁字母，en 为汉字）最高占比，为空时使用内置值
+         */
+        private Double maxSecondaryRatio;
+
+        /**
+         * 不可识别字符（替换字符、控制字符、未分配码位等）最高占比，为空时使用内置值；设为 1 可关闭该规则
+         */
+        private Double maxUnrecognizedRatio;
+
+        /**
+         * 数字最高占比，为空时使用内置值
+         */
+        private Double maxDigitRatio;
+
+        /**
+         * 符号最高占比，为空时使用内置值
+         */
+        private Double maxSymbolRatio;
+    }
+
+    @Data
+    public static class Render {
+
+        /**
+         * WebClient 池最大实例数
+         */
+        private int poolSize = 2;
+
+        /**
+         * 启动时预先创建的实例数
+         */
+        private int prewarm = 1;
+
+        /**
+         * 单个实例的最大使用次数，达到后关闭重建
+         */
+        private int maxUsesPerClient = 200;
+
+        /**
+         * 借用等待超时（毫秒）
+         */
+        private long leaseTimeoutMs = 30_000L;
+
+        /**
+         * 空闲超时（毫秒），超时的实例在下次借用时关闭
+         */
+        private long idleTimeoutMs = 10L * 60 * 1000;
+
+        /**
+         * 渲染时是否执行页面脚本，默认关闭（与原 readHTML 一致），脚本生成内容的页面需要开启
+         */
+        private boolean javaScriptEnabled = false;
+
+        /**
+         * 渲染时是否加载样式，默认关闭（与原 readHTML 一致）
+         */
+        private boolean cssEnabled = false;
+    }
+
+    @Data
+    public static class Sheet {
+
+        /**
+         * 所有工作表合计的最大行数，小于等于 0 表示不限制
+         */
+        private int maxRows = 1_000_000;
+
+        /**
+         * 所有工作表合计的最大单元格数，小于等于 0 表示不限制
+         */
+        private int maxCells = 10_000_000;
+    }
+
+    @Data
+    public static class Docx {
+
+        /**
+         * 是否在正文之后追加页眉、页脚、脚注、尾注
+         */
+        private boolean includeAuxiliaryParts = false;
+    }
+
+    @Data
+    public static class Pdf {
+
+        /**
+         * 页数达到该值时按页分段并行提取，小于等于 0 表示不并行
+         */
+        private int parallelPageThreshold = 200;
+
+        /**
+         * 单个 PDF 同时处理的分段数（含调用线程），也是 PDF 分段线程池的大小上限；小于等于 1 表示不并行
+         */
+        private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+        /**
+         * 是否去除在多数页面同一位置重复出现的行（水印、页眉页脚）
+         */
+        private boolean removeRepeatedLines = true;
+
+        /**
+         * 单个文档的堆内流缓存上限（字节），超出部分写入临时文件；小于等于 0 表示只用临时文件
+         */
+        private long maxMainMemoryBytes = 16L * 1024 * 1024;
+
+        /**
+         * 流缓存溢出的临时文件目录，为空时使用 extract.spool.dir，再为空时使用 java.io.tmpdir
+         */
+        private String scratchDir;
+    }
+
+    @Data
+    public static class Ofd {
+
+        /**
+         * 页数达到该值时按页分段并行提取，小于等于 0 表示不并行
+         */
+        private int parallelPageThreshold = 100;
+
+        /**
+         * 单个 OFD 同时处理的分段数（含调用线程），也是 OFD 分段线程池的大小上限；小于等于 1 表示不并行
+         */
+        private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * 所有在途文件估算堆占用（文件大小 × 格式成本系数）之和的上限（字节），小于等于 0 时取最大堆的一半
+         */
+        private long maxInflightCost = 0L;
+
+        /**
+         * 超出预算时最长排队时间（毫秒），超时返回 429
+         */
+        private long queueTimeoutMs = 2_000L;
+
+        /**
+         * 429 响应的 Retry-After（秒）
+         */
+        private int retryAfterSeconds = 3;
+
+        /**
+         * 各分舱（pdf / sheet / office / text / other）的最大并发数，未配置或小于等于 0 表示不限制
+         */
+        private Map<String, Integer> bulkheads = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Worker {
+
+        /**
+         * 是否在子 JVM 中解析，开启后单个文件的 OOM、死循环只影响一个子进程
+         */
+        private boolean enabled = false;
+
+        /**
+         * 子进程数
+         */
+        private int poolSize = 2;
+
+        /**
+         * 启动时预先创建的子进程数
+         */
+        private int prewarm = 2;
+
+        /**
+         * 单个子进程的最大堆（MB）
+         */
+        private int maxHeapMb = 512;
+
+        /**
+         * 单个子进程处理的文件数上限，达到后退出重建
+         */
+        private int maxJobsPerWorker = 200;
+
+        /**
+         * 单个文件强制结束子进程的期限（毫秒），只兜底不响应 extract.deadline 的解析；
+         * 不短于解析期限加 5 秒宽限，到期前子进程先返回部分结果
+         */
+        private long timeoutMs = 120_000L;
+
+        /**
+         * 等待空闲子进程的超时（毫秒）
+         */
+        private long leaseTimeoutMs = 30_000L;
+
+        /**
+         * 额外的子进程 JVM 参数
+         */
+        private List<String> jvmArgs = new ArrayList<>();
+    }
+
+    @Data
+    public static class Deadline {
+
+        /**
+         * 同步接口单个文件的解析期限（毫秒），到期返回已提取的部分并标记 timedOut，小于等于 0 表示不限制
+         */
+        private long syncMs = 60_000L;
+
+        /**
+         * 异步任务的解析期限（毫秒），小于等于 0 表示不限制
+         */
+        private long jobMs = 10L * 60 * 1000;
+    }
+}
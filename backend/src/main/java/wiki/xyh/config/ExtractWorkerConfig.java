@@ -0,0 +1,76 @@
+package wiki.xyh.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.jobs.ExtractWorker;
+import wiki.xyh.utils.ExtractWorkerPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 子进程解析配置，仅在 extract.worker.enabled=true 时按 extract.worker.* 创建解析子进程池。
+ */
+@Configuration
+public class ExtractWorkerConfig {
+
+    /**
+     * 解析子进程池，容器关闭时结束所有子进程。子进程不启动 Spring，影响解析结果的 extract.* 配置以系统属性传入。
+     * 子进程内不创建 PDF / OFD 分段并行与回退路由并行线程池，单个文件总是串行解析：
+     * 并发由多个子进程提供，小堆的子进程内再并行只会放大峰值内存。
+     *
+     * @param properties 提取配置
+     * @return 解析子进程池
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "extract.worker", name = "enabled", havingValue = "true")
+    public ExtractWorkerPool extractWorkerPool(ExtractProperties properties) throws IOException {
+        ExtractProperties.Worker worker = properties.getWorker();
+
+        List<String> jvmArgs = new ArrayList<>();
+        jvmArgs.add("-Xmx" + worker.getMaxHeapMb() + "m");
+        // OOM 时立即退出，由父进程丢弃并重建，不在半坏的堆上继续运行
+        jvmArgs.add("-XX:+ExitOnOutOfMemoryError");
+        jvmArgs.add("-XX:+UseSerialGC");
+        jvmArgs.add("-Dfile.encoding=UTF-8");
+        jvmArgs.add("-Dextract.sheet.max-rows=" + properties.getSheet().getMaxRows());
+        jvmArgs.add("-Dextract.sheet.max-cells=" + properties.getSheet().getMaxCells());
+        jvmArgs.add("-Dextract.docx.include-auxiliary-parts=" + properties.getDocx().isIncludeAuxiliaryParts());
+        jvmArgs.add("-Dextract.pdf.remove-repeated-lines=" + properties.getPdf().isRemoveRepeatedLines());
+        jvmArgs.add("-Dextract.pdf.max-main-memory-bytes=" + properties.getPdf().getMaxMainMemoryBytes());
+        ExtractProperties.Mess mess = properties.getMess();
+        jvmArgs.add("-Dextract.mess.language=" + mess.getLanguage());
+        addIfNotNull(jvmArgs, "extract.mess.min-primary-ratio", mess.getMinPrimaryRatio());
+        addIfNotNull(jvmArgs, "extract.mess.max-secondary-ratio", mess.getMaxSecondaryRatio());
+        addIfNotNull(jvmArgs, "extract.mess.max-unrecognized-ratio", mess.getMaxUnrecognizedRatio());
+        addIfNotNull(jvmArgs, "extract.mess.max-digit-ratio", mess.getMaxDigitRatio());
+        addIfNotNull(jvmArgs, "extract.mess.max-symbol-ratio", mess.getMaxSymbolRatio());
+        String scratchDir = properties.getPdf().getScratchDir();
+        if (scratchDir == null || scratchDir.isEmpty()) {
+            scratchDir = properties.getSpool().getDir();
+        }
+        if (scratchDir != null && !scratchDir.isEmpty()) {
+            jvmArgs.add("-Dextract.pdf.scratch-dir=" + scratchDir);
+        }
+        jvmArgs.addAll(worker.getJvmArgs());
+
+        return new ExtractWorkerPool(
+                ExtractWorker.class.getName(),
+                jvmArgs,
+                worker.getPoolSize(),
+                worker.getMaxJobsPerWorker(),
+                worker.getTimeoutMs(),
+                worker.getLeaseTimeoutMs(),
+                worker.getPrewarm());
+    }
+
+    private static void addIfNotNull(List<String> jvmArgs, String name, Object value) {
+        if (value != null) {
+            jvmArgs.add("-D" + name + "=" + value);
+        }
+    }
+}
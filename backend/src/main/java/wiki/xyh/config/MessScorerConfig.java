@@ -0,0 +1,34 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.MessScorer;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 乱码判定配置，按 extract.mess.* 构建语言配置并设为 MessScorer 的默认配置，
+ *              WsTextUtils.isMess 与 UNKNOWN 类型回退路由都使用该配置。
+ */
+@Configuration
+public class MessScorerConfig {
+
+    /**
+     * 乱码判定的语言配置。
+     *
+     * @param properties 提取配置
+     * @return 语言配置
+     */
+    @Bean
+    public MessScorer.Profile messProfile(ExtractProperties properties) {
+        ExtractProperties.Mess mess = properties.getMess();
+        MessScorer.Profile profile = MessScorer.Profile.of(mess.getLanguage()).with(
+                mess.getMinPrimaryRatio(),
+                mess.getMaxSecondaryRatio(),
+                mess.getMaxUnrecognizedRatio(),
+                mess.getMaxDigitRatio(),
+                mess.getMaxSymbolRatio());
+        MessScorer.setDefaultProfile(profile);
+        return profile;
+    }
+}
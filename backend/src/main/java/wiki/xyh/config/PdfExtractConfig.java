@@ -0,0 +1,40 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.PDFWatermarkRemover;
+import wiki.xyh.utils.PdfLoader;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: PDF 提取配置，按 extract.pdf.* 设置 PDFWatermarkRemover 的默认行为与 PdfLoader 的堆内存预算
+ *              （分段并行线程池在 ExtractExecutorConfig 中注册）。
+ */
+@Configuration
+public class PdfExtractConfig {
+
+    private final ExtractProperties properties;
+
+    public PdfExtractConfig(ExtractProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void apply() {
+        ExtractProperties.Pdf pdf = properties.getPdf();
+        PDFWatermarkRemover.setRemoveRepeatedLines(pdf.isRemoveRepeatedLines());
+
+        String dir = pdf.getScratchDir();
+        if (dir == null || dir.isEmpty()) {
+            dir = properties.getSpool().getDir();
+        }
+        File scratchDir = dir == null || dir.isEmpty() ? null : new File(dir);
+        if (scratchDir != null && !scratchDir.isDirectory() && !scratchDir.mkdirs()) {
+            throw new IllegalStateException("无法创建 PDF 临时目录: " + scratchDir);
+        }
+        PdfLoader.setMemoryBudget(pdf.getMaxMainMemoryBytes(), scratchDir);
+    }
+}
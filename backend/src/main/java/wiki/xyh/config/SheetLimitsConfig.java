@@ -0,0 +1,28 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.SheetLimits;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 表格提取上限配置，按 extract.sheet.* 设置 SheetLimits 的默认上限。
+ */
+@Configuration
+public class SheetLimitsConfig {
+
+    /**
+     * 表格提取的行数 / 单元格数上限。
+     *
+     * @param properties 提取配置
+     * @return 上限
+     */
+    @Bean
+    public SheetLimits sheetLimits(ExtractProperties properties) {
+        ExtractProperties.Sheet sheet = properties.getSheet();
+        SheetLimits limits = SheetLimits.of(sheet.getMaxRows(), sheet.getMaxCells());
+        SheetLimits.setDefault(limits);
+        return limits;
+    }
+}
@@ -0,0 +1,36 @@
+package wiki.xyh.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import wiki.xyh.utils.PageParser;
+import wiki.xyh.utils.WebClientPool;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: HtmlUnit 渲染配置，按 extract.render.* 创建 WebClient 池并交给 PageParser 使用。
+ */
+@Configuration
+public class WebClientPoolConfig {
+
+    /**
+     * WebClient 池，容器关闭时关闭所有空闲实例。
+     *
+     * @param properties 提取配置
+     * @return WebClient 池
+     */
+    @Bean(destroyMethod = "close")
+    public WebClientPool webClientPool(ExtractProperties properties) {
+        ExtractProperties.Render render = properties.getRender();
+        WebClientPool pool = new WebClientPool(
+                render.getPoolSize(),
+                render.getMaxUsesPerClient(),
+                render.getLeaseTimeoutMs(),
+                render.getIdleTimeoutMs(),
+                render.getPrewarm(),
+                render.isJavaScriptEnabled(),
+                render.isCssEnabled());
+        PageParser.setClientPool(pool);
+        return pool;
+    }
+}
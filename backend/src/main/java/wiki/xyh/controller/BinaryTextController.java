@@ -1,15 +1,17 @@
 package wiki.xyh.controller;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import wiki.xyh.bean.TypeAndContent;
 import wiki.xyh.dto.ExtractResultDTO;
-import wiki.xyh.utils.GetTypeAndContent;
+import wiki.xyh.service.ExtractService;
+import wiki.xyh.utils.ExtractAdmission;
+import wiki.xyh.utils.ExtractBudget;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,27 +25,61 @@ import java.util.List;
 @CrossOrigin
 public class BinaryTextController {
 
+    private final ExtractService extractService;
+
+    public BinaryTextController(ExtractService extractService) {
+        this.extractService = extractService;
+    }
+
     /**
      * 单文件提取接口，接受一个文件并返回识别类型和提取内容。
+     * 可选的预算参数（预览模式）让解析器提前停止，未传或小于等于 0 表示不限制；
+     * 达到任一上限时返回已提取的部分，truncated 为 true。
      *
-     * @param file 前端上传的文件对象
-     * @return 包含文件名、大小、类型、内容、错误信息的响应实体
+     * @param file      前端上传的文件对象
+     * @param maxPages  最大页数（PDF / OFD 页、幻灯片）
+     * @param maxChars  最大字符数
+     * @param maxRows   表格最大行数
+     * @param maxTimeMs 最长解析耗时（毫秒）
+     * @return 包含文件名、大小、类型、内容、错误信息、截断标记的响应实体；
+     *         解析准入排队超时时返回 429 与 Retry-After
      */
     @PostMapping(
             value = "/single",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<ExtractResultDTO> extractSingle(@RequestPart("file") MultipartFile file) {
-        ExtractResultDTO result = handleFile(file);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<ExtractResultDTO> extractSingle(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(value = "maxPages", defaultValue = "0") int maxPages,
+            @RequestParam(value = "maxChars", defaultValue = "0") int maxChars,
+            @RequestParam(value = "maxRows", defaultValue = "0") int maxRows,
+            @RequestParam(value = "maxTimeMs", defaultValue = "0") long maxTimeMs) {
+        ExtractBudget budget = ExtractBudget.of(maxPages, maxChars, maxRows, maxTimeMs);
+        try {
+            ExtractResultDTO result = extractService.extract(file, budget);
+            return ResponseEntity.ok(result);
+        } catch (ExtractAdmission.RejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        }
     }
 
     /**
-     * 多文件批量提取接口，前端一次性上传多个文件，在后端串行处理。
-     * 实际并发控制可以交给前端，以减少服务端压力。
+     * 多文件批量提取接口，一次性上传多个文件。
+     * 默认在后端串行处理；parallel=true 时提交到服务端提取线程池并行处理，
+     * 每个文件有独立的解析期限，结果仍按上传顺序返回。
+     *
+     * 预算参数与 /single 相同，对每个文件分别生效。
+     * 准入排队超时的文件在结果中返回 errorMsg，不影响其他文件。
      *
-     * @param files 前端上传的文件数组
+     * @param files     前端上传的文件数组
+     * @param parallel  是否启用服务端并行模式
+     * @param maxPages  最大页数
+     * @param maxChars  最大字符数
+     * @param maxRows   表格最大行数
+     * @param maxTimeMs 最长解析耗时（毫秒）
      * @return 每个文件对应一个提取结果的列表
      */
     @PostMapping(
@@ -51,49 +87,14 @@ public class BinaryTextController {
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<List<ExtractResultDTO>> extractBatch(@RequestPart("files") MultipartFile[] files) {
-        List<ExtractResultDTO> list = new ArrayList<ExtractResultDTO>();
-        if (files != null) {
-            for (MultipartFile file : files) {
-                list.add(handleFile(file));
-            }
-        }
-        return ResponseEntity.ok(list);
-    }
-
-    /**
-     * 实际处理单个文件的内部方法：
-     * 1. 读取文件字节
-     * 2. 调用 GetTypeAndContent.getFileTypeAndContent
-     * 3. 构建统一的返回对象
-     *
-     * @param file 上传的单个文件
-     * @return 统一封装后的提取结果
-     */
-    private ExtractResultDTO handleFile(MultipartFile file) {
-        ExtractResultDTO dto = new ExtractResultDTO();
-        dto.setFileName(file.getOriginalFilename());
-        dto.setFileSize(file.getSize());
-
-        try {
-            byte[] bytes = file.getBytes();
-            // 核心：完全复用你现在的 GetTypeAndContent 方法
-            TypeAndContent typeAndContent = GetTypeAndContent.getFileTypeAndContent(bytes);
-            if (typeAndContent != null) {
-                dto.setFileType(typeAndContent.getType());
-                dto.setContent(typeAndContent.getContent());
-                dto.setErrorMsg(null);
-            } else {
-                dto.setFileType(null);
-                dto.setContent(null);
-                dto.setErrorMsg("解析结果为空");
-            }
-        } catch (Exception e) {
-            dto.setFileType(null);
-            dto.setContent(null);
-            dto.setErrorMsg("解析异常: " + e.getMessage());
-        }
-
-        return dto;
+    public ResponseEntity<List<ExtractResultDTO>> extractBatch(
+            @RequestPart("files") MultipartFile[] files,
+            @RequestParam(value = "parallel", defaultValue = "false") boolean parallel,
+            @RequestParam(value = "maxPages", defaultValue = "0") int maxPages,
+            @RequestParam(value = "maxChars", defaultValue = "0") int maxChars,
+            @RequestParam(value = "maxRows", defaultValue = "0") int maxRows,
+            @RequestParam(value = "maxTimeMs", defaultValue = "0") long maxTimeMs) {
+        ExtractBudget budget = ExtractBudget.of(maxPages, maxChars, maxRows, maxTimeMs);
+        return ResponseEntity.ok(extractService.extractBatch(files, parallel, budget));
     }
 }
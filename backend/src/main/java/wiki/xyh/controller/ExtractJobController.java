@@ -0,0 +1,80 @@
+package wiki.xyh.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import wiki.xyh.dto.ExtractJobDTO;
+import wiki.xyh.dto.ExtractResultDTO;
+import wiki.xyh.service.ExtractJobService;
+
+import java.io.IOException;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 异步提取任务控制器。长耗时的 PDF / XLSX 等文件先提交为任务并立即返回任务 id，
+ *              调用方轮询状态接口查看进度，完成后再获取文本，避免一个 HTTP 连接挂到解析结束。
+ */
+@RestController
+@RequestMapping("/api/extract/jobs")
+@CrossOrigin
+public class ExtractJobController {
+
+    private final ExtractJobService jobService;
+
+    public ExtractJobController(ExtractJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * 提交异步提取任务。
+     *
+     * @param file 前端上传的文件对象
+     * @return 202 与任务状态；排队任务过多时返回 503
+     */
+    @PostMapping(
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<ExtractJobDTO> submit(@RequestPart("file") MultipartFile file) throws IOException {
+        ExtractJobDTO job = jobService.submit(file);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * 查询任务状态与进度（已完成页数、已处理字节数）。
+     *
+     * @param id 任务 id
+     * @return 任务状态，不存在时返回 404
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExtractJobDTO> status(@PathVariable("id") String id) {
+        ExtractJobDTO job = jobService.status(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * 获取任务结果，返回结构与同步接口一致。
+     *
+     * @param id 任务 id
+     * @return 任务结束时返回 200 与提取结果；未结束时返回 202 与任务状态；不存在时返回 404
+     */
+    @GetMapping(value = "/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> result(@PathVariable("id") String id) throws IOException {
+        ExtractJobDTO job = jobService.status(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!jobService.isFinished(job)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        }
+        ExtractResultDTO result = jobService.result(id);
+        return result == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,309 @@
+package wiki.xyh.dto;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 异步提取任务状态 DTO，用于提交与轮询接口，不包含提取出的文本，
+ *              文本通过 /api/extract/jobs/{id}/result 单独获取。
+ */
+public class ExtractJobDTO {
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 任务状态：QUEUED / RUNNING / DONE / FAILED
+     */
+    private String status;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件大小（字节数）
+     */
+    private long fileSize;
+
+    /**
+     * 识别出的文件类型，任务完成后才有值
+     */
+    private String fileType;
+
+    /**
+     * 总页数（PDF / OFD 等分页格式），未知时为 0
+     */
+    private int totalPages;
+
+    /**
+     * 已完成页数
+     */
+    private int pagesDone;
+
+    /**
+     * 已处理字节数，分页格式按页数比例估算
+     */
+    private long bytesProcessed;
+
+    /**
+     * 提交时间（毫秒时间戳）
+     */
+    private long submittedAt;
+
+    /**
+     * 开始解析时间（毫秒时间戳），未开始时为 0
+     */
+    private long startedAt;
+
+    /**
+     * 结束时间（毫秒时间戳），未结束时为 0
+     */
+    private long finishedAt;
+
+    /**
+     * 错误信息，任务失败时写明原因
+     */
+    private String errorMsg;
+
+    /**
+     * 是否因超出服务端解析期限而停止，为 true 时内容是期限内提取的部分，完整结果需提高 extract.deadline.job-ms 后重新提交
+     */
+    private boolean timedOut;
+
+    /**
+     * 获取任务 id。
+     *
+     * @return 任务 id 字符串
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * 设置任务 id。
+     *
+     * @param jobId 任务 id 字符串
+     */
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    /**
+     * 获取任务状态。
+     *
+     * @return 状态字符串
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 设置任务状态。
+     *
+     * @param status 状态字符串
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * 获取原始文件名。
+     *
+     * @return 文件名字符串
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 设置原始文件名。
+     *
+     * @param fileName 文件名字符串
+     */
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * 获取文件大小（字节数）。
+     *
+     * @return 文件大小数值
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * 设置文件大小（字节数）。
+     *
+     * @param fileSize 文件大小数值
+     */
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * 获取识别出的文件类型。
+     *
+     * @return 文件类型字符串
+     */
+    public String getFileType() {
+        return fileType;
+    }
+
+    /**
+     * 设置识别出的文件类型。
+     *
+     * @param fileType 文件类型字符串
+     */
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    /**
+     * 获取总页数（PDF / OFD 等分页格式）。
+     *
+     * @return 总页数
+     */
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * 设置总页数（PDF / OFD 等分页格式）。
+     *
+     * @param totalPages 总页数
+     */
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    /**
+     * 获取已完成页数。
+     *
+     * @return 已完成页数
+     */
+    public int getPagesDone() {
+        return pagesDone;
+    }
+
+    /**
+     * 设置已完成页数。
+     *
+     * @param pagesDone 已完成页数
+     */
+    public void setPagesDone(int pagesDone) {
+        this.pagesDone = pagesDone;
+    }
+
+    /**
+     * 获取已处理字节数。
+     *
+     * @return 已处理字节数
+     */
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+
+    /**
+     * 设置已处理字节数。
+     *
+     * @param bytesProcessed 已处理字节数
+     */
+    public void setBytesProcessed(long bytesProcessed) {
+        this.bytesProcessed = bytesProcessed;
+    }
+
+    /**
+     * 获取提交时间（毫秒时间戳）。
+     *
+     * @return 时间戳
+     */
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    /**
+     * 设置提交时间（毫秒时间戳）。
+     *
+     * @param submittedAt 时间戳
+     */
+    public void setSubmittedAt(long submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    /**
+     * 获取开始解析时间（毫秒时间戳）。
+     *
+     * @return 时间戳
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * 设置开始解析时间（毫秒时间戳）。
+     *
+     * @param startedAt 时间戳
+     */
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * 获取结束时间（毫秒时间戳）。
+     *
+     * @return 时间戳
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * 设置结束时间（毫秒时间戳）。
+     *
+     * @param finishedAt 时间戳
+     */
+    public void setFinishedAt(long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * 获取错误信息。
+     *
+     * @return 错误信息字符串
+     */
+    public String getErrorMsg() {
+        return errorMsg;
+    }
+
+    /**
+     * 设置错误信息。
+     *
+     * @param errorMsg 错误信息字符串
+     */
+    public void setErrorMsg(String errorMsg) {
+        this.errorMsg = errorMsg;
+    }
+
+    /**
+     * 是否超出解析期限。
+     *
+     * @return true 表示解析到期被停止，只返回了部分内容
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 设置是否超出解析期限。
+     *
+     * @param timedOut 是否超时
+     */
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+}
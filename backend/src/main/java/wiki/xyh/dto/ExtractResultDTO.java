@@ -32,6 +32,16 @@ public class ExtractResultDTO {
      */
     private String errorMsg;
 
+    /**
+     * 内容是否因提取预算（页数 / 字符数 / 行数 / 耗时）或表格上限被截断
+     */
+    private boolean truncated;
+
+    /**
+     * 是否因超出服务端解析期限而停止，为 true 时内容是期限内提取的部分（truncated 同时为 true）
+     */
+    private boolean timedOut;
+
     /**
      * 获取原始文件名。
      *
@@ -121,4 +131,40 @@ public class ExtractResultDTO {
     public void setErrorMsg(String errorMsg) {
         this.errorMsg = errorMsg;
     }
+
+    /**
+     * 内容是否被截断。
+     *
+     * @return true 表示只提取了部分内容
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 设置内容是否被截断。
+     *
+     * @param truncated 是否被截断
+     */
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * 是否超出解析期限。
+     *
+     * @return true 表示解析到期被停止，只返回了部分内容
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 设置是否超出解析期限。
+     *
+     * @param timedOut 是否超时
+     */
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
 }
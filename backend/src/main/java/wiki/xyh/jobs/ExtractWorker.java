@@ -0,0 +1,60 @@
+package wiki.xyh.jobs;
+
+import wiki.xyh.utils.DocxStreamExtractor;
+import wiki.xyh.utils.ExtractMetrics;
+import wiki.xyh.utils.ExtractWorkerPool;
+import wiki.xyh.utils.MessScorer;
+import wiki.xyh.utils.PDFWatermarkRemover;
+import wiki.xyh.utils.PdfLoader;
+import wiki.xyh.utils.SheetLimits;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 解析子进程入口，由 ExtractWorkerPool 启动。标准输入 / 输出是与父进程之间的请求管道，
+ *               日志与 System.out 一律改走标准错误。子进程不启动 Spring，extract.* 中影响解析结果的配置
+ *               由父进程以系统属性传入（见 ExtractWorkerConfig）。
+ *               子进程内不设置 PDF / OFD 分段并行与回退路由并行线程池，单个文件总是串行解析。
+ *               子进程的提取指标暂存为事件，随响应回传父进程记录。
+ */
+public class ExtractWorker {
+
+    public static void main(String[] args) throws Exception {
+        // 先接管标准输出，之后初始化的日志框架只能拿到标准错误
+        OutputStream pipe = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        ExtractMetrics.captureEvents();
+
+        SheetLimits.setDefault(SheetLimits.of(
+                Integer.getInteger("extract.sheet.max-rows", SheetLimits.DEFAULT_MAX_ROWS),
+                Integer.getInteger("extract.sheet.max-cells", SheetLimits.DEFAULT_MAX_CELLS)));
+        DocxStreamExtractor.setIncludeAuxiliaryParts(Boolean.getBoolean("extract.docx.include-auxiliary-parts"));
+        PDFWatermarkRemover.setRemoveRepeatedLines(
+                Boolean.parseBoolean(System.getProperty("extract.pdf.remove-repeated-lines", "true")));
+        String scratchDir = System.getProperty("extract.pdf.scratch-dir");
+        PdfLoader.setMemoryBudget(Long.getLong("extract.pdf.max-main-memory-bytes", 16L * 1024 * 1024),
+                scratchDir == null || scratchDir.isEmpty() ? null : new File(scratchDir));
+
+        MessScorer.setDefaultProfile(MessScorer.Profile.of(System.getProperty("extract.mess.language", "zh")).with(
+                doubleProperty("extract.mess.min-primary-ratio"),
+                doubleProperty("extract.mess.max-secondary-ratio"),
+                doubleProperty("extract.mess.max-unrecognized-ratio"),
+                doubleProperty("extract.mess.max-digit-ratio"),
+                doubleProperty("extract.mess.max-symbol-ratio")));
+
+        ExtractWorkerPool.serve(System.in, pipe);
+    }
+
+    /**
+     * 未设置时返回 null，使用语言配置的内置值。
+     */
+    private static Double doubleProperty(String name) {
+        String value = System.getProperty(name);
+        return value == null || value.isEmpty() ? null : Double.valueOf(value);
+    }
+}
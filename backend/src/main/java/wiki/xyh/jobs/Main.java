@@ -14,14 +14,19 @@ import java.util.logging.Logger;
 /**
  * @Author: XYH
  * @Date: 5/10/2024 10:56
- * @Description: TODO
+ * @Description: 命令行调试入口，解析参数指定的文件并打印类型与文本
  */
 public class Main {
     public static void main(String[] args) throws Exception {
 
+        if (args.length < 1) {
+            System.err.println("用法: java wiki.xyh.jobs.Main <文件路径>");
+            System.exit(1);
+        }
+
         LogManager.getLogManager().reset();
         Logger.getLogger("").setLevel(Level.OFF);
-        String filePath = "/Users/xyh/Desktop/成功2.pdf";
+        String filePath = args[0];
         byte[] bytes = FileUtils.readFileToByteArray(new File(filePath));
         TypeAndContent fileTypeAndContent = GetTypeAndContent.getFileTypeAndContent(bytes);
         System.out.println(fileTypeAndContent.getType());
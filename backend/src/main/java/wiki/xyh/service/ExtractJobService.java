@@ -0,0 +1,411 @@
+package wiki.xyh.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import wiki.xyh.bean.TypeAndContent;
+import wiki.xyh.config.ExtractProperties;
+import wiki.xyh.dto.ExtractJobDTO;
+import wiki.xyh.dto.ExtractResultDTO;
+import wiki.xyh.utils.ExtractAdmission;
+import wiki.xyh.utils.ExtractBudget;
+import wiki.xyh.utils.ExtractContext;
+import wiki.xyh.utils.ExtractMetrics;
+import wiki.xyh.utils.ExtractSource;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 异步提取任务服务。提交时把上传文件和任务元数据写入任务目录（本地持久化队列），
+ *              由独立的工作线程池按自己的节奏逐个解析；服务重启后扫描任务目录，
+ *              未完成（排队中 / 解析中）的任务重新入队，不会丢失。
+ */
+@Service
+public class ExtractJobService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String INPUT_FILE = "input.bin";
+    private static final String META_FILE = "job.properties";
+    private static final String RESULT_FILE = "result.txt";
+
+    private final ExecutorService jobExecutor;
+
+    private final ExtractService extractService;
+
+    private final ExtractProperties properties;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private Path root;
+
+    public ExtractJobService(@Qualifier("extractJobExecutor") ExecutorService jobExecutor,
+                             ExtractService extractService,
+                             ExtractProperties properties) {
+        this.jobExecutor = jobExecutor;
+        this.extractService = extractService;
+        this.properties = properties;
+    }
+
+    /**
+     * 启动时恢复任务目录：已结束的任务只加载状态，排队中和解析中的任务按提交时间重新入队；
+     * 没有元数据的目录是提交过程中断留下的，直接删除。
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        root = Paths.get(properties.getJobs().getDir()).toAbsolutePath();
+        Files.createDirectories(root);
+
+        List<Job> pending = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : (Iterable<Path>) dirs::iterator) {
+                if (!Files.isDirectory(dir)) {
+                    continue;
+                }
+                Path meta = dir.resolve(META_FILE);
+                if (!Files.exists(meta)) {
+                    deleteDir(dir);
+                    continue;
+                }
+                Job job = Job.load(dir, meta);
+                jobs.put(job.id, job);
+                if (STATUS_QUEUED.equals(job.status) || STATUS_RUNNING.equals(job.status)) {
+                    job.status = STATUS_QUEUED;
+                    job.startedAt = 0L;
+                    pending.add(job);
+                }
+            }
+        }
+        pending.sort(Comparator.comparingLong(j -> j.submittedAt));
+        for (Job job : pending) {
+            persist(job);
+            // 恢复的任务已经持久化，不受 max-queued 限制
+            queued.incrementAndGet();
+            enqueue(job);
+        }
+    }
+
+    /**
+     * 提交任务：文件写入任务目录后立即返回任务状态。
+     *
+     * @param file 上传的文件
+     * @return 任务状态；排队数量已达上限时返回 null
+     */
+    public ExtractJobDTO submit(MultipartFile file) throws IOException {
+        if (!reserveSlot()) {
+            return null;
+        }
+        Job job = new Job(UUID.randomUUID().toString().replace("-", ""));
+        job.dir = root.resolve(job.id);
+        job.fileName = file.getOriginalFilename();
+        job.fileSize = file.getSize();
+        job.submittedAt = System.currentTimeMillis();
+        job.status = STATUS_QUEUED;
+
+        try {
+            Files.createDirectories(job.dir);
+            file.transferTo(job.dir.resolve(INPUT_FILE).toFile());
+            // 元数据最后写入：只有元数据落盘的任务才算提交成功
+            persist(job);
+        } catch (IOException | RuntimeException e) {
+            queued.decrementAndGet();
+            deleteDir(job.dir);
+            throw e;
+        }
+        jobs.put(job.id, job);
+        enqueue(job);
+        return job.toDTO();
+    }
+
+    /**
+     * 查询任务状态与进度。
+     *
+     * @param id 任务 id
+     * @return 任务状态，不存在时返回 null
+     */
+    public ExtractJobDTO status(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.toDTO();
+    }
+
+    /**
+     * 读取任务结果。
+     *
+     * @param id 任务 id
+     * @return 提取结果；任务不存在时返回 null；任务未结束时 content 与 errorMsg 均为空
+     */
+    public ExtractResultDTO result(String id) throws IOException {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        ExtractResultDTO dto = new ExtractResultDTO();
+        dto.setFileName(job.fileName);
+        dto.setFileSize(job.fileSize);
+        dto.setFileType(job.fileType);
+        dto.setErrorMsg(job.errorMsg);
+        dto.setTruncated(job.timedOut);
+        dto.setTimedOut(job.timedOut);
+        if (STATUS_DONE.equals(job.status)) {
+            Path result = job.dir.resolve(RESULT_FILE);
+            if (Files.exists(result)) {
+                dto.setContent(new String(Files.readAllBytes(result), StandardCharsets.UTF_8));
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * 判断任务是否已结束（成功或失败）。
+     */
+    public boolean isFinished(ExtractJobDTO dto) {
+        return STATUS_DONE.equals(dto.getStatus()) || STATUS_FAILED.equals(dto.getStatus());
+    }
+
+    /**
+     * 定期删除超过保留时长的已结束任务。
+     */
+    @Scheduled(fixedDelayString = "${extract.jobs.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        long expireBefore = System.currentTimeMillis() - properties.getJobs().getRetentionMs();
+        for (Job job : jobs.values()) {
+            boolean finished = STATUS_DONE.equals(job.status) || STATUS_FAILED.equals(job.status);
+            if (finished && job.finishedAt < expireBefore) {
+                jobs.remove(job.id);
+                deleteDir(job.dir);
+            }
+        }
+    }
+
+    /**
+     * 占用一个排队名额，检查与递增是同一个 CAS，并发提交不会超过 max-queued。
+     *
+     * @return 已达上限时返回 false
+     */
+    private boolean reserveSlot() {
+        int max = properties.getJobs().getMaxQueued();
+        while (true) {
+            int current = queued.get();
+            if (current >= max) {
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 交给工作线程执行，调用前已占用排队名额。
+     */
+    private void enqueue(Job job) {
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭（应用正在停止），任务保持 QUEUED，下次启动时恢复
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * 工作线程执行单个任务。小文件读入内存解析，大文件直接以文件形式解析。
+     */
+    private void run(Job job) {
+        queued.decrementAndGet();
+        ExtractContext context = new ExtractContext(ExtractBudget.UNLIMITED, properties.getDeadline().getJobMs());
+        job.context = context;
+        job.status = STATUS_RUNNING;
+        job.startedAt = System.currentTimeMillis();
+        try {
+            persist(job);
+            File input = job.dir.resolve(INPUT_FILE).toFile();
+            ExtractSource source = input.length() > properties.getSpool().getThresholdBytes()
+                    ? ExtractSource.of(input)
+                    : ExtractSource.of(Files.readAllBytes(input.toPath()));
+
+            context.start(source.size());
+            // 任务已持久化排队，准入时一直等待，不拒绝
+            TypeAndContent typeAndContent = extractService.extract(source, context, ExtractAdmission.WAIT_FOREVER);
+            // 命中结果缓存时解析器不会汇报进度，这里统一补齐
+            context.finish();
+            if (typeAndContent != null) {
+                job.fileType = typeAndContent.getType();
+                job.timedOut = context.isTimedOut();
+                String content = typeAndContent.getContent();
+                writeAtomically(job.dir.resolve(RESULT_FILE),
+                        (content == null ? "" : content).getBytes(StandardCharsets.UTF_8));
+                job.status = STATUS_DONE;
+            } else {
+                job.errorMsg = "解析结果为空";
+                job.status = STATUS_FAILED;
+            }
+        } catch (ExtractService.FileTooLargeException e) {
+            job.fileType = e.getType();
+            job.errorMsg = e.getMessage();
+            job.status = STATUS_FAILED;
+        } catch (Exception e) {
+            if (jobExecutor.isShutdown()) {
+                // 应用停止时被中断的任务不算失败：磁盘上仍是 RUNNING，下次启动时重新执行
+                return;
+            }
+            ExtractMetrics.recordFailure("unknown", e);
+            job.errorMsg = "解析异常: " + e.getMessage();
+            job.status = STATUS_FAILED;
+        }
+        job.finishedAt = System.currentTimeMillis();
+        try {
+            persist(job);
+            Files.deleteIfExists(job.dir.resolve(INPUT_FILE));
+        } catch (IOException ignored) {
+            // 元数据写入失败时保留输入文件，重启后任务会重新执行
+        }
+    }
+
+    private void persist(Job job) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("id", job.id);
+        meta.setProperty("status", job.status);
+        meta.setProperty("submittedAt", String.valueOf(job.submittedAt));
+        meta.setProperty("startedAt", String.valueOf(job.startedAt));
+        meta.setProperty("finishedAt", String.valueOf(job.finishedAt));
+        meta.setProperty("fileSize", String.valueOf(job.fileSize));
+        setIfNotNull(meta, "fileName", job.fileName);
+        setIfNotNull(meta, "fileType", job.fileType);
+        setIfNotNull(meta, "errorMsg", job.errorMsg);
+        meta.setProperty("timedOut", String.valueOf(job.timedOut));
+
+        Path tmp = job.dir.resolve(META_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+        move(tmp, job.dir.resolve(META_FILE));
+    }
+
+    private static void setIfNotNull(Properties meta, String key, String value) {
+        if (value != null) {
+            meta.setProperty(key, value);
+        }
+    }
+
+    /**
+     * 先写临时文件再改名，保证进程崩溃时不会留下写了一半的文件。
+     */
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, data);
+        move(tmp, target);
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteDir(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ignored) {
+            // 下一轮清理时重试
+        }
+    }
+
+    /**
+     * 任务状态。字段由工作线程写、请求线程读，均为 volatile。
+     */
+    private static final class Job {
+        private final String id;
+        private volatile Path dir;
+        private volatile String status;
+        private volatile String fileName;
+        private volatile long fileSize;
+        private volatile String fileType;
+        private volatile String errorMsg;
+        private volatile boolean timedOut;
+        private volatile long submittedAt;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile ExtractContext context;
+
+        private Job(String id) {
+            this.id = id;
+        }
+
+        private static Job load(Path dir, Path metaFile) throws IOException {
+            Properties meta = new Properties();
+            try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+                meta.load(reader);
+            }
+            Job job = new Job(meta.getProperty("id", dir.getFileName().toString()));
+            job.dir = dir;
+            job.status = meta.getProperty("status", STATUS_QUEUED);
+            job.fileName = meta.getProperty("fileName");
+            job.fileSize = Long.parseLong(meta.getProperty("fileSize", "0"));
+            job.fileType = meta.getProperty("fileType");
+            job.errorMsg = meta.getProperty("errorMsg");
+            job.timedOut = Boolean.parseBoolean(meta.getProperty("timedOut"));
+            job.submittedAt = Long.parseLong(meta.getProperty("submittedAt", "0"));
+            job.startedAt = Long.parseLong(meta.getProperty("startedAt", "0"));
+            job.finishedAt = Long.parseLong(meta.getProperty("finishedAt", "0"));
+            return job;
+        }
+
+        private ExtractJobDTO toDTO() {
+            ExtractJobDTO dto = new ExtractJobDTO();
+            dto.setJobId(id);
+            dto.setStatus(status);
+            dto.setFileName(fileName);
+            dto.setFileSize(fileSize);
+            dto.setFileType(fileType);
+            dto.setErrorMsg(errorMsg);
+            dto.setTimedOut(timedOut);
+            dto.setSubmittedAt(submittedAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            ExtractContext ctx = context;
+            if (ctx != null) {
+                dto.setTotalPages(ctx.getTotalPages());
+                dto.setPagesDone(ctx.getPagesDone());
+                dto.setBytesProcessed(ctx.getBytesProcessed());
+            } else if (STATUS_DONE.equals(status) || STATUS_FAILED.equals(status)) {
+                dto.setBytesProcessed(fileSize);
+            }
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package wiki.xyh.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import wiki.xyh.bean.TypeAndContent;
+import wiki.xyh.config.ExtractProperties;
+import wiki.xyh.dto.ExtractResultDTO;
+import wiki.xyh.utils.ExtractAdmission;
+import wiki.xyh.utils.ExtractBudget;
+import wiki.xyh.utils.ExtractContext;
+import wiki.xyh.utils.ExtractMetrics;
+import wiki.xyh.utils.ExtractResultCache;
+import wiki.xyh.utils.ExtractSource;
+import wiki.xyh.utils.ExtractWorkerPool;
+import wiki.xyh.utils.FileTypeDetector;
+import wiki.xyh.utils.GetTypeAndContent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 文本提取服务，封装单文件提取与批量提取（串行 / 并行）逻辑，
+ *              Controller 只负责 HTTP 参数绑定与结果返回。
+ */
+@Service
+public class ExtractService {
+
+    /**
+     * 等待尚未开始执行（仍在队列中）的任务时的轮询间隔（毫秒）
+     */
+    private static final long QUEUED_POLL_MS = 100L;
+
+    /**
+     * 批量并行时，放弃等待前在解析期限之外额外等待的时间（毫秒），留给解析器在检查点停下并返回部分结果
+     */
+    private static final long DEADLINE_GRACE_MS = 5_000L;
+
+    private final ExecutorService extractExecutor;
+
+    private final ExtractProperties properties;
+
+    private final ExtractResultCache resultCache;
+
+    private final ExtractAdmission admission;
+
+    /**
+     * 解析子进程池，未开启 extract.worker.enabled 时为 null，在当前进程内解析
+     */
+    private final ExtractWorkerPool workerPool;
+
+    public ExtractService(@Qualifier("extractExecutor") ExecutorService extractExecutor,
+                          ExtractProperties properties,
+                          ExtractResultCache resultCache,
+                          ExtractAdmission admission,
+                          ObjectProvider<ExtractWorkerPool> workerPool) {
+        this.extractExecutor = extractExecutor;
+        this.properties = properties;
+        this.resultCache = resultCache;
+        this.admission = admission;
+        this.workerPool = workerPool.getIfAvailable();
+    }
+
+    /**
+     * 批量提取入口。
+     *
+     * @param files    上传的文件数组
+     * @param parallel 是否使用服务端并行模式
+     * @return 与输入顺序一致的提取结果列表
+     */
+    public List<ExtractResultDTO> extractBatch(MultipartFile[] files, boolean parallel) {
+        return extractBatch(files, parallel, ExtractBudget.UNLIMITED);
+    }
+
+    /**
+     * 批量提取入口，每个文件各自按 budget 提前停止。
+     *
+     * @param files    上传的文件数组
+     * @param parallel 是否使用服务端并行模式
+     * @param budget   单个文件的提取预算
+     * @return 与输入顺序一致的提取结果列表
+     */
+    public List<ExtractResultDTO> extractBatch(MultipartFile[] files, boolean parallel, ExtractBudget budget) {
+        if (files == null || files.length == 0) {
+            return new ArrayList<ExtractResultDTO>();
+        }
+        return parallel ? extractParallel(files, budget) : extractSerial(files, budget);
+    }
+
+    /**
+     * 串行处理：逐个文件提取，总耗时为各文件耗时之和。
+     *
+     * @param files  上传的文件数组
+     * @param budget 单个文件的提取预算
+     * @return 提取结果列表
+     */
+    private List<ExtractResultDTO> extractSerial(MultipartFile[] files, ExtractBudget budget) {
+        List<ExtractResultDTO> list = new ArrayList<ExtractResultDTO>(files.length);
+        for (MultipartFile file : files) {
+            try {
+                list.add(extract(file, budget));
+            } catch (ExtractAdmission.RejectedException e) {
+                list.add(failed(file, e.getMessage()));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 并行处理：所有文件提交到提取线程池，按输入顺序收集结果。
+     * 每个文件从真正开始执行时计算期限，排队时间不计入；解析期限取 extract.deadline.sync-ms 与
+     * extract.batch.file-timeout-ms 的较小者，解析器到期自行停止并返回部分内容。
+     * 等待上限在解析期限之外再加上准入排队时间与宽限时间（落盘、摘要、类型识别也在任务开始后、解析计时前），
+     * 只有不响应期限的解析（如整体解析的 DOC）才会被放弃等待并返回超时错误，不影响其他文件的结果。
+     * 提取线程池队列已满时该文件直接返回错误结果（不在请求线程上执行），调用方可稍后重试或减小批量。
+     *
+     * @param files  上传的文件数组
+     * @param budget 单个文件的提取预算
+     * @return 与输入顺序一致的提取结果列表
+     */
+    private List<ExtractResultDTO> extractParallel(MultipartFile[] files, ExtractBudget budget) {
+        long timeoutMs = properties.getBatch().getFileTimeoutMs();
+        long syncMs = properties.getDeadline().getSyncMs();
+        long deadlineMs = syncMs > 0 ? Math.min(syncMs, timeoutMs) : timeoutMs;
+        long waitLimitMs = deadlineMs + properties.getAdmission().getQueueTimeoutMs() + DEADLINE_GRACE_MS;
+
+        List<BatchTask> tasks = new ArrayList<BatchTask>(files.length);
+        List<Future<ExtractResultDTO>> futures = new ArrayList<Future<ExtractResultDTO>>(files.length);
+        for (MultipartFile file : files) {
+            BatchTask task = new BatchTask(file, budget, deadlineMs);
+            tasks.add(task);
+            try {
+                futures.add(extractExecutor.submit(task));
+            } catch (RejectedExecutionException e) {
+                // 队列已满，该文件不排队
+                futures.add(null);
+            }
+        }
+
+        List<ExtractResultDTO> list = new ArrayList<ExtractResultDTO>(files.length);
+        for (int i = 0; i < files.length; i++) {
+            Future<ExtractResultDTO> future = futures.get(i);
+            if (future == null) {
+                list.add(failed(tasks.get(i).file, "提取队列已满，请稍后重试"));
+            } else {
+                list.add(await(future, tasks.get(i), waitLimitMs));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 等待单个任务完成，超过期限则取消任务并返回超时结果。
+     *
+     * @param future    任务 Future
+     * @param task      任务本身，用于读取开始执行时间
+     * @param timeoutMs 单文件期限（毫秒）
+     * @return 提取结果
+     */
+    private ExtractResultDTO await(Future<ExtractResultDTO> future, BatchTask task, long timeoutMs) {
+        while (true) {
+            long startedAt = task.startedAt;
+            long waitMs = startedAt == 0L
+                    ? QUEUED_POLL_MS
+                    : TimeUnit.NANOSECONDS.toMillis(startedAt - System.nanoTime()) + timeoutMs;
+            if (startedAt != 0L && waitMs <= 0) {
+                future.cancel(true);
+                ExtractMetrics.recordFailure("unknown", ExtractMetrics.CAUSE_TIMEOUT);
+                return failed(task.file, "解析超时: 超过 " + timeoutMs + " ms");
+            }
+            try {
+                return future.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // 仍在排队或尚未到期，继续等待
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                return failed(task.file, "解析中断");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ExtractAdmission.RejectedException) {
+                    return failed(task.file, e.getCause().getMessage());
+                }
+                ExtractMetrics.recordFailure("unknown", e.getCause());
+                return failed(task.file, "解析异常: " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * 实际处理单个文件：
+     * 1. 小文件读取为字节数组；超过 extract.spool.threshold-bytes 的大文件落盘为临时文件
+     * 2. 按内容摘要查询结果缓存，命中则直接返回
+     * 3. 未命中时调用 GetTypeAndContent.getFileTypeAndContent 并写入缓存
+     * 4. 构建统一的返回对象
+     *
+     * @param file 上传的单个文件
+     * @return 统一封装后的提取结果
+     */
+    public ExtractResultDTO extract(MultipartFile file) {
+        return extract(file, ExtractBudget.UNLIMITED);
+    }
+
+    /**
+     * 按预算提取单个文件（预览模式），达到页数 / 字符数 / 行数 / 耗时上限时返回已提取的部分，
+     * 并在结果中标记 truncated。
+     *
+     * @param file   上传的单个文件
+     * @param budget 提取预算
+     * @return 统一封装后的提取结果
+     * @throws ExtractAdmission.RejectedException 准入排队超时
+     */
+    public ExtractResultDTO extract(MultipartFile file, ExtractBudget budget) {
+        return extract(file, budget, properties.getDeadline().getSyncMs());
+    }
+
+    /**
+     * 同上，指定解析期限。到期时解析器在下一个检查点停止，返回已提取的部分并标记 truncated 与 timedOut。
+     *
+     * @param file       上传的单个文件
+     * @param budget     提取预算
+     * @param deadlineMs 解析期限（毫秒），小于等于 0 表示不限制
+     * @return 统一封装后的提取结果
+     * @throws ExtractAdmission.RejectedException 准入排队超时
+     */
+    private ExtractResultDTO extract(MultipartFile file, ExtractBudget budget, long deadlineMs) {
+        ExtractResultDTO dto = new ExtractResultDTO();
+        dto.setFileName(file.getOriginalFilename());
+        dto.setFileSize(file.getSize());
+
+        File spooled = null;
+        try {
+            ExtractSource source;
+            if (file.getSize() > properties.getSpool().getThresholdBytes()) {
+                spooled = spool(file);
+                source = ExtractSource.of(spooled);
+            } else {
+                source = ExtractSource.of(file.getBytes());
+            }
+            ExtractContext context = new ExtractContext(budget, deadlineMs);
+            TypeAndContent typeAndContent = extract(source, context);
+            if (typeAndContent != null) {
+                dto.setFileType(typeAndContent.getType());
+                dto.setContent(typeAndContent.getContent());
+                dto.setTruncated(context.isTruncated());
+                dto.setTimedOut(context.isTimedOut());
+                dto.setErrorMsg(null);
+            } else {
+                dto.setFileType(null);
+                dto.setContent(null);
+                dto.setErrorMsg("解析结果为空");
+            }
+        } catch (ExtractAdmission.RejectedException e) {
+            // 由调用方转换为 429
+            throw e;
+        } catch (FileTooLargeException e) {
+            dto.setFileType(e.getType());
+            dto.setContent(null);
+            dto.setErrorMsg(e.getMessage());
+        } catch (Exception e) {
+            ExtractMetrics.recordFailure("unknown", e);
+            dto.setFileType(null);
+            dto.setContent(null);
+            dto.setErrorMsg("解析异常: " + e.getMessage());
+        } finally {
+            if (spooled != null && !spooled.delete()) {
+                spooled.deleteOnExit();
+            }
+        }
+
+        return dto;
+    }
+
+    /**
+     * 把上传文件转存为临时文件。Multipart 大文件本身已在磁盘上，transferTo 通常只是移动或复制文件。
+     *
+     * @param file 上传的文件
+     * @return 临时文件
+     */
+    private File spool(MultipartFile file) throws IOException {
+        String dir = properties.getSpool().getDir();
+        File spoolDir = dir == null || dir.isEmpty() ? null : new File(dir);
+        if (spoolDir != null && !spoolDir.isDirectory() && !spoolDir.mkdirs()) {
+            throw new IOException("无法创建临时目录: " + spoolDir);
+        }
+        File spooled = File.createTempFile("extract-", ".bin", spoolDir);
+        file.transferTo(spooled.getAbsoluteFile());
+        return spooled;
+    }
+
+    /**
+     * 带结果缓存的提取，相同内容的文件只解析一次。有预算的提取结果不完整，不读也不写缓存；
+     * 超出解析期限的部分结果不写缓存。
+     * 缓存未命中时先经准入控制，最多排队 extract.admission.queue-timeout-ms。
+     *
+     * @param source  提取源（内存字节或落盘文件）
+     * @param context 提取上下文，解析器在其中汇报进度
+     * @return 提取结果
+     * @throws ExtractAdmission.RejectedException 排队超时
+     */
+    public TypeAndContent extract(ExtractSource source, ExtractContext context) throws IOException {
+        return extract(source, context, properties.getAdmission().getQueueTimeoutMs());
+    }
+
+    /**
+     * 同上，指定准入排队时间。
+     *
+     * @param source          提取源（内存字节或落盘文件）
+     * @param context         提取上下文，解析器在其中汇报进度
+     * @param admissionWaitMs 最长排队时间（毫秒），ExtractAdmission.WAIT_FOREVER 表示一直等待
+     * @return 提取结果
+     * @throws ExtractAdmission.RejectedException 排队超时
+     */
+    public TypeAndContent extract(ExtractSource source, ExtractContext context, long admissionWaitMs)
+            throws IOException {
+        if (!resultCache.isEnabled() || !context.getBudget().isUnlimited()) {
+            return admitAndExtract(source, context, admissionWaitMs);
+        }
+        String key = ExtractResultCache.digest(source);
+        TypeAndContent cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        TypeAndContent typeAndContent = admitAndExtract(source, context, admissionWaitMs);
+        // 超时的部分结果与解析失败（内容为 null）的结果不缓存
+        if (!context.isTimedOut() && typeAndContent != null && typeAndContent.getContent() != null) {
+            resultCache.put(key, typeAndContent);
+        }
+        return typeAndContent;
+    }
+
+    /**
+     * 按文件类型与大小申请准入后解析，解析结束（含异常）归还预算。识别出的类型直接交给解析，不再重复识别。
+     * 开启子进程解析时在子 JVM 中执行，子进程崩溃、OOM 或超时被结束时抛出 IOException。
+     */
+    private TypeAndContent admitAndExtract(ExtractSource source, ExtractContext context, long admissionWaitMs)
+            throws IOException {
+        long typeStart = System.nanoTime();
+        FileTypeDetector.FileType type = FileTypeDetector.detectFileType(source.buffer());
+        String typeTag = type.toString().toLowerCase();
+        ExtractMetrics.recordStage(ExtractMetrics.STAGE_TYPE, typeTag, System.nanoTime() - typeStart);
+        checkInHeapLimit(type, typeTag, source.size(), context);
+
+        ExtractAdmission.Permit permit = admission.acquire(type, source.size(), admissionWaitMs);
+        try {
+            if (workerPool != null) {
+                return workerPool.extract(source, type, context);
+            }
+            return GetTypeAndContent.getFileTypeAndContent(source, type, context);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 整体读入堆内存的解析器（TXT 未限制字符数时、RTF、DOC、MSG、PPT，以及可能回退到它们的 UNKNOWN）
+     * 按 extract.in-heap.max-bytes 限制单文件大小，其余格式走落盘 / 随机访问路径，只受上传上限约束。
+     *
+     * @throws FileTooLargeException 超出该类型的上限
+     */
+    private void checkInHeapLimit(FileTypeDetector.FileType type, String typeTag, long size, ExtractContext context)
+            throws FileTooLargeException {
+        if (type == FileTypeDetector.FileType.TXT && context.getBudget().hasCharLimit()) {
+            // 限制字符数时只解码前 maxChars 个字符
+            return;
+        }
+        Long limit = properties.getInHeap().getMaxBytes().get(typeTag);
+        if (limit != null && limit > 0 && size > limit) {
+            ExtractMetrics.recordFailure(typeTag, ExtractMetrics.CAUSE_TOO_LARGE);
+            throw new FileTooLargeException(typeTag, "文件过大: " + typeTag + " 格式单文件上限为 " + limit + " 字节");
+        }
+    }
+
+    /**
+     * 构建失败结果。
+     *
+     * @param file     上传的文件
+     * @param errorMsg 错误信息
+     * @return 失败的提取结果
+     */
+    private static ExtractResultDTO failed(MultipartFile file, String errorMsg) {
+        ExtractResultDTO dto = new ExtractResultDTO();
+        dto.setFileName(file.getOriginalFilename());
+        dto.setFileSize(file.getSize());
+        dto.setErrorMsg(errorMsg);
+        return dto;
+    }
+
+    /**
+     * 批量并行任务，记录开始执行的时间，用于计算单文件期限。
+     */
+    private final class BatchTask implements Callable<ExtractResultDTO> {
+
+        private final MultipartFile file;
+
+        private final ExtractBudget budget;
+
+        private final long deadlineMs;
+
+        private volatile long startedAt;
+
+        private BatchTask(MultipartFile file, ExtractBudget budget, long deadlineMs) {
+            this.file = file;
+            this.budget = budget;
+            this.deadlineMs = deadlineMs;
+        }
+
+        @Override
+        public ExtractResultDTO call() {
+            // System.nanoTime 可能为 0，这里保证“已开始”的标记非 0
+            long now = System.nanoTime();
+            startedAt = now == 0L ? 1L : now;
+            return extract(file, budget, deadlineMs);
+        }
+    }
+
+    /**
+     * 文件超出其类型的堆内解析上限（extract.in-heap.max-bytes），未解析。
+     */
+    public static class FileTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String type;
+
+        public FileTooLargeException(String type, String message) {
+            super(message);
+            this.type = type;
+        }
+
+        /**
+         * 检测到的文件类型（小写）
+         */
+        public String getType() {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package wiki.xyh.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 表驱动的字符集探测引擎，直接在 byte[] / ByteBuffer 上工作。
+ *               只扫描有限的采样窗口（默认前 64KB），扫描过程不产生任何对象，
+ *               按置信度区分 UTF-8、UTF-16LE/BE、GBK、GB18030 与 Big5。
+ */
+public final class CharsetDetector {
+
+    /**
+     * 默认采样窗口大小（字节）
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 64 * 1024;
+
+    // UTF-8 字节分类
+    private static final byte U_ASCII = 0;
+    private static final byte U_CONT = 1;
+    private static final byte U_LEAD2 = 2;
+    private static final byte U_LEAD3 = 3;
+    private static final byte U_LEAD4 = 4;
+    private static final byte U_INVALID = 5;
+
+    /**
+     * 每个字节值对应的 UTF-8 分类
+     */
+    private static final byte[] UTF8_CLASS = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            byte cls;
+            if (b < 0x80) {
+                cls = U_ASCII;
+            } else if (b < 0xC0) {
+                cls = U_CONT;
+            } else if (b < 0xC2) {
+                cls = U_INVALID;   // C0/C1 只能构成过长编码
+            } else if (b < 0xE0) {
+                cls = U_LEAD2;
+            } else if (b < 0xF0) {
+                cls = U_LEAD3;
+            } else if (b < 0xF5) {
+                cls = U_LEAD4;
+            } else {
+                cls = U_INVALID;
+            }
+            UTF8_CLASS[b] = cls;
+        }
+    }
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * 对字节数组前 {@link #DEFAULT_SAMPLE_SIZE} 字节做字符集探测。
+     *
+     * @param bytes     文件内容
+     * @param ignoreBom 为 true 时带 BOM 的 UTF-8 也返回 UTF-8
+     * @return 探测结果
+     */
+    public static Result detect(byte[] bytes, boolean ignoreBom) {
+        return detect(ByteBuffer.wrap(bytes), ignoreBom, DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * 对 ByteBuffer 从 position 开始的采样窗口做字符集探测，不改变 buffer 的 position。
+     *
+     * @param buf        待探测内容（堆内或内存映射均可）
+     * @param ignoreBom  为 true 时带 BOM 的 UTF-8 也返回 UTF-8
+     * @param sampleSize 采样窗口大小
+     * @return 探测结果
+     */
+    public static Result detect(ByteBuffer buf, boolean ignoreBom, int sampleSize) {
+        int start = buf.position();
+        int len = Math.min(buf.remaining(), Math.max(4, sampleSize));
+        int end = start + len;
+
+        // 1. BOM
+        if (len >= 2) {
+            int b0 = buf.get(start) & 0xFF;
+            int b1 = buf.get(start + 1) & 0xFF;
+            if (b0 == 0xFF && b1 == 0xFE) {
+                return new Result(EncodeUtils.CODE_UTF16LE, 1.0f);
+            }
+            if (b0 == 0xFE && b1 == 0xFF) {
+                return new Result(EncodeUtils.CODE_UTF16BE, 1.0f);
+            }
+            if (len >= 3 && b0 == 0xEF && b1 == 0xBB && (buf.get(start + 2) & 0xFF) == 0xBF) {
+                return new Result(ignoreBom ? EncodeUtils.CODE_UTF8 : EncodeUtils.CODE_UTF8_BOM, 1.0f);
+            }
+        }
+
+        // 2. 单次扫描同时统计 UTF-16 零字节分布与 UTF-8 合法性
+        int zeroEven = 0;
+        int zeroOdd = 0;
+        // UTF-16 中 CJK 统一汉字的高位字节落在 0x4E-0x9F，可用来识别无 BOM 的纯中文 UTF-16
+        int cjkHighEven = 0;
+        int cjkHighOdd = 0;
+        int highBytes = 0;
+        int utf8Multi = 0;
+        int utf8Invalid = 0;
+        int pending = 0;
+        for (int i = start; i < end; i++) {
+            int b = buf.get(i) & 0xFF;
+            boolean even = ((i - start) & 1) == 0;
+            if (b == 0) {
+                if (even) {
+                    zeroEven++;
+                } else {
+                    zeroOdd++;
+                }
+            } else if (b >= 0x4E && b <= 0x9F) {
+                if (even) {
+                    cjkHighEven++;
+                } else {
+                    cjkHighOdd++;
+                }
+            }
+            byte cls = UTF8_CLASS[b];
+            if (pending > 0) {
+                if (cls == U_CONT) {
+                    if (--pending == 0) {
+                        utf8Multi++;
+                    }
+                    continue;
+                }
+                utf8Invalid++;
+                pending = 0;
+            }
+            switch (cls) {
+                case U_ASCII:
+                    break;
+                case U_LEAD2:
+                    highBytes++;
+                    pending = 1;
+                    break;
+                case U_LEAD3:
+                    highBytes++;
+                    pending = 2;
+                    break;
+                case U_LEAD4:
+                    highBytes++;
+                    pending = 3;
+                    break;
+                default:
+                    highBytes++;
+                    utf8Invalid++;
+                    break;
+            }
+        }
+        // 末尾被采样窗口截断的多字节序列不算错误
+
+        int pairs = len / 2;
+        if (pairs >= 8) {
+            if (zeroOdd * 10 >= pairs * 4 && zeroEven * 20 < pairs) {
+                return new Result(EncodeUtils.CODE_UTF16LE, ratioConfidence(zeroOdd, pairs));
+            }
+            if (zeroEven * 10 >= pairs * 4 && zeroOdd * 20 < pairs) {
+                return new Result(EncodeUtils.CODE_UTF16BE, ratioConfidence(zeroEven, pairs));
+            }
+        }
+
+        if (highBytes == 0) {
+            // 纯 ASCII，UTF-8 是其超集
+            return new Result(EncodeUtils.CODE_UTF8, 1.0f);
+        }
+        if (utf8Invalid == 0 || utf8Invalid * 50 < utf8Multi) {
+            float confidence = utf8Invalid == 0 ? (utf8Multi >= 4 ? 0.99f : 0.75f) : 0.7f;
+            return new Result(EncodeUtils.CODE_UTF8, confidence);
+        }
+
+        if (pairs >= 8) {
+            int highOdd = zeroOdd + cjkHighOdd;
+            int highEven = zeroEven + cjkHighEven;
+            // 低位字节近似随机分布，约 1/3 也会落在该区间，因此只要求明显偏向一侧
+            if (highOdd * 10 >= pairs * 7 && highEven * 2 <= pairs) {
+                return new Result(EncodeUtils.CODE_UTF16LE, ratioConfidence(highOdd, pairs) * 0.9f);
+            }
+            if (highEven * 10 >= pairs * 7 && highOdd * 2 <= pairs) {
+                return new Result(EncodeUtils.CODE_UTF16BE, ratioConfidence(highEven, pairs) * 0.9f);
+            }
+        }
+
+        // 3. 双字节中文编码评分
+        return detectDoubleByte(buf, start, end);
+    }
+
+    /**
+     * 严格校验 [start, end) 区间是否为合法 UTF-8（拒绝过长编码与代理区），不分配对象。
+     *
+     * @param buf               待校验内容
+     * @param start             起始下标（绝对位置）
+     * @param end               结束下标（不含）
+     * @param allowTruncatedTail 区间只是采样窗口时，允许末尾的多字节序列被截断
+     * @return 是否为合法 UTF-8
+     */
+    public static boolean isValidUtf8(ByteBuffer buf, int start, int end, boolean allowTruncatedTail) {
+        int i = start;
+        while (i < end) {
+            int b = buf.get(i) & 0xFF;
+            byte cls = UTF8_CLASS[b];
+            if (cls == U_ASCII) {
+                i++;
+                continue;
+            }
+            int need;
+            int min = 0x80;
+            int max = 0xBF;
+            switch (cls) {
+                case U_LEAD2:
+                    need = 1;
+                    break;
+                case U_LEAD3:
+                    need = 2;
+                    if (b == 0xE0) min = 0xA0;
+                    if (b == 0xED) max = 0x9F;
+                    break;
+                case U_LEAD4:
+                    need = 3;
+                    if (b == 0xF0) min = 0x90;
+                    if (b == 0xF4) max = 0x8F;
+                    break;
+                default:
+                    return false;
+            }
+            if (i + need >= end) {
+                if (!allowTruncatedTail) {
+                    return false;
+                }
+                // 采样窗口截断的尾部：校验已有的续字节
+                for (int k = i + 1; k < end; k++) {
+                    int c = buf.get(k) & 0xFF;
+                    if (k == i + 1 ? (c < min || c > max) : UTF8_CLASS[c] != U_CONT) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            int c1 = buf.get(i + 1) & 0xFF;
+            if (c1 < min || c1 > max) {
+                return false;
+            }
+            for (int k = 2; k <= need; k++) {
+                if (UTF8_CLASS[buf.get(i + k) & 0xFF] != U_CONT) {
+                    return false;
+                }
+            }
+            i += need + 1;
+        }
+        return true;
+    }
+
+    /**
+     * 在 GBK / GB18030 / Big5 之间评分。
+     * GB18030 四字节序列（81-FE 30-39 81-FE 30-39）在其他编码中非法，出现即判定；
+     * Big5 常用字大量使用 40-7E 尾字节，而 GB2312 常用区只用 A1-FE 尾字节；
+     * 81-A0 首字节与 80-A0 尾字节只有 GBK 合法。
+     */
+    private static Result detectDoubleByte(ByteBuffer buf, int start, int end) {
+        int gbScore = 0;
+        int big5Score = 0;
+        int gbInvalid = 0;
+        int big5Invalid = 0;
+        int fourByte = 0;
+        int pairs = 0;
+
+        int i = start;
+        while (i < end) {
+            int b1 = buf.get(i) & 0xFF;
+            if (b1 < 0x80) {
+                i++;
+                continue;
+            }
+            if (i + 1 >= end) {
+                break;
+            }
+            int b2 = buf.get(i + 1) & 0xFF;
+
+            if (b1 >= 0x81 && b1 <= 0xFE && b2 >= 0x30 && b2 <= 0x39) {
+                if (i + 3 < end) {
+                    int b3 = buf.get(i + 2) & 0xFF;
+                    int b4 = buf.get(i + 3) & 0xFF;
+                    if (b3 >= 0x81 && b3 <= 0xFE && b4 >= 0x30 && b4 <= 0x39) {
+                        fourByte++;
+                        big5Invalid++;
+                        i += 4;
+                        continue;
+                    }
+                }
+                gbInvalid++;
+                big5Invalid++;
+                i += 2;
+                continue;
+            }
+
+            pairs++;
+            boolean gbkValid = b1 >= 0x81 && b1 <= 0xFE && b2 >= 0x40 && b2 <= 0xFE && b2 != 0x7F;
+            boolean big5Valid = b1 >= 0xA1 && b1 <= 0xF9
+                    && ((b2 >= 0x40 && b2 <= 0x7E) || (b2 >= 0xA1 && b2 <= 0xFE));
+            if (!gbkValid) {
+                gbInvalid++;
+            }
+            if (!big5Valid) {
+                big5Invalid++;
+            }
+            if (gbkValid && big5Valid) {
+                if (b2 <= 0x7E) {
+                    big5Score += 2;
+                } else {
+                    if (b1 >= 0xB0 && b1 <= 0xF7) {
+                        gbScore++;
+                    }
+                    if (b1 >= 0xA4 && b1 <= 0xC6) {
+                        big5Score++;
+                    }
+                    if (b1 <= 0xA3) {
+                        gbScore++;
+                        big5Score++;
+                    }
+                }
+            } else if (gbkValid) {
+                gbScore += 2;
+            } else if (big5Valid) {
+                big5Score += 2;
+            }
+            i += 2;
+        }
+
+        if (fourByte > 0 && gbInvalid * 10 <= pairs) {
+            return new Result(EncodeUtils.CODE_GB18030, fourByte >= 2 ? 0.95f : 0.8f);
+        }
+        int total = Math.max(1, gbScore + big5Score);
+        if (big5Score > gbScore && big5Invalid * 20 <= pairs) {
+            return new Result(EncodeUtils.CODE_BIG5, invalidPenalty(0.5f + 0.5f * (big5Score - gbScore) / total, big5Invalid, pairs));
+        }
+        return new Result(EncodeUtils.CODE_GBK, invalidPenalty(0.5f + 0.5f * Math.max(0, gbScore - big5Score) / total, gbInvalid, pairs));
+    }
+
+    private static float ratioConfidence(int hits, int total) {
+        return Math.min(1.0f, 0.5f + 0.5f * hits / Math.max(1, total));
+    }
+
+    private static float invalidPenalty(float confidence, int invalid, int pairs) {
+        if (pairs == 0) {
+            return 0.1f;
+        }
+        return Math.max(0.1f, confidence * (1.0f - (float) invalid / pairs));
+    }
+
+    /**
+     * 探测结果：Java 字符集名称与置信度（0~1）。
+     */
+    public static final class Result {
+        private final String charset;
+        private final float confidence;
+
+        Result(String charset, float confidence) {
+            this.charset = charset;
+            this.confidence = confidence;
+        }
+
+        public String getCharset() {
+            return charset;
+        }
+
+        public float getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public String toString() {
+            return charset + "(" + confidence + ")";
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package wiki.xyh.utils;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.util.XMLHelper;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: DOCX 流式提取。用 StAX 直接扫描 word/document.xml，遇到 w:t 输出文字、段落结束输出换行，
+ *               不构建 XWPFDocument（不解析样式、编号、图片等部件，也不建立段落 / 表格对象图）。
+ *               表格单元格之间制表符、每行一个换行；mc:Fallback 中的兼容副本跳过，避免文本框内容重复；
+ *               删除的修订（w:delText）与域代码（w:instrText）不输出。页眉、页脚、脚注、尾注按需追加在正文之后。
+ */
+public final class DocxStreamExtractor {
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String W_STRICT_NS = "http://purl.oclc.org/ooxml/wordprocessingml/main";
+    private static final String MC_NS = "http://schemas.openxmlformats.org/markup-compatibility/2006";
+
+    private static final String REL_BASE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+    /**
+     * 按需追加的辅助部件：页眉、页脚、脚注、尾注
+     */
+    private static final String[] AUXILIARY_RELATIONS = {
+            REL_BASE + "header", REL_BASE + "footer", REL_BASE + "footnotes", REL_BASE + "endnotes"
+    };
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLHelper.newXMLInputFactory();
+
+    private static volatile boolean includeAuxiliaryParts = false;
+
+    private DocxStreamExtractor() {
+    }
+
+    /**
+     * 设置默认是否追加页眉、页脚、脚注、尾注。
+     */
+    public static void setIncludeAuxiliaryParts(boolean include) {
+        includeAuxiliaryParts = include;
+    }
+
+    public static boolean isIncludeAuxiliaryParts() {
+        return includeAuxiliaryParts;
+    }
+
+    /**
+     * 按默认配置提取。
+     */
+    public static String extract(OPCPackage pkg) throws Exception {
+        return extract(pkg, includeAuxiliaryParts);
+    }
+
+    /**
+     * 提取正文文本，调用方负责关闭 pkg。
+     *
+     * @param pkg                   已打开的 OPC 包
+     * @param includeAuxiliaryParts 是否追加页眉、页脚、脚注、尾注
+     * @return 文本
+     * @throws IllegalArgumentException 主文档不是 Word 文档（如 xlsx / pptx）
+     */
+    public static String extract(OPCPackage pkg, boolean includeAuxiliaryParts) throws Exception {
+        return extract(pkg, includeAuxiliaryParts, new ExtractContext());
+    }
+
+    /**
+     * 同上，每个段落结束时检查提取预算（字符数 / 耗时），达到上限即停止并在 context 上标记截断。
+     */
+    public static String extract(OPCPackage pkg, boolean includeAuxiliaryParts, ExtractContext context)
+            throws Exception {
+        PackagePart main = mainDocumentPart(pkg);
+        StringBuilder out = new StringBuilder(4096);
+        if (appendPart(main, out, context) && includeAuxiliaryParts) {
+            outer:
+            for (String relation : AUXILIARY_RELATIONS) {
+                for (PackageRelationship rel : main.getRelationshipsByType(relation)) {
+                    PackagePart part = main.getRelatedPart(rel);
+                    if (part != null && !appendPart(part, out, context)) {
+                        break outer;
+                    }
+                }
+            }
+        }
+        return out.toString().trim();
+    }
+
+    private static PackagePart mainDocumentPart(OPCPackage pkg) {
+        PackageRelationshipCollection rels = pkg.getRelationshipsByType(PackageRelationshipTypes.CORE_DOCUMENT);
+        if (rels.size() == 0) {
+            rels = pkg.getRelationshipsByType(PackageRelationshipTypes.STRICT_CORE_DOCUMENT);
+        }
+        PackagePart main = rels.size() == 0 ? null : pkg.getPart(rels.getRelationship(0));
+        // 主文档内容类型：wordprocessingml.document.main / template.main、ms-word 宏文档等
+        if (main == null || !(main.getContentType().contains("wordprocessingml")
+                || main.getContentType().contains("ms-word"))) {
+            throw new IllegalArgumentException("不是 Word 文档: " + (main == null ? "无主文档" : main.getContentType()));
+        }
+        return main;
+    }
+
+    /**
+     * 追加一个部件的文本，预算用尽时返回 false。
+     */
+    private static boolean appendPart(PackagePart part, StringBuilder out, ExtractContext context)
+            throws IOException, XMLStreamException {
+        if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+            out.append('\n');
+        }
+        try (InputStream in = part.getInputStream()) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                return scan(reader, out, context);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static boolean isWordElement(XMLStreamReader reader) {
+        String ns = reader.getNamespaceURI();
+        return W_NS.equals(ns) || W_STRICT_NS.equals(ns);
+    }
+
+    private static boolean scan(XMLStreamReader reader, StringBuilder out, ExtractContext context)
+            throws XMLStreamException {
+        boolean inText = false;
+        // w:tab 同时用作段落属性中的制表位定义（w:tabs/w:tab），只有 run 中的 w:tab 输出制表符
+        boolean inTabStops = false;
+        // mc:Fallback 嵌套深度，大于 0 时跳过
+        int fallbackDepth = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (fallbackDepth > 0 || (MC_NS.equals(reader.getNamespaceURI())
+                        && "Fallback".equals(reader.getLocalName()))) {
+                    fallbackDepth++;
+                    continue;
+                }
+                if (!isWordElement(reader)) {
+                    continue;
+                }
+                switch (reader.getLocalName()) {
+                    case "t":
+                        inText = true;
+                        break;
+                    case "tabs":
+                        inTabStops = true;
+                        break;
+                    case "tab":
+                        if (!inTabStops) {
+                            out.append('\t');
+                        }
+                        break;
+                    case "br":
+                    case "cr":
+                        out.append('\n');
+                        break;
+                    case "noBreakHyphen":
+                        out.append('-');
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (fallbackDepth > 0) {
+                    fallbackDepth--;
+                    continue;
+                }
+                if (!isWordElement(reader)) {
+                    continue;
+                }
+                switch (reader.getLocalName()) {
+                    case "t":
+                        inText = false;
+                        break;
+                    case "tabs":
+                        inTabStops = false;
+                        break;
+                    case "p":
+                        out.append('\n');
+                        if (context.shouldStop(out.length())) {
+                            return false;
+                        }
+                        break;
+                    case "tc":
+                        // 单元格最后一个段落的换行改为制表符
+                        replaceTrailing(out, '\n', '\t');
+                        break;
+                    case "tr":
+                        replaceTrailing(out, '\t', '\n');
+                        break;
+                    default:
+                        break;
+                }
+            } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)) {
+                out.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+        return true;
+    }
+
+    private static void replaceTrailing(StringBuilder out, char from, char to) {
+        int last = out.length() - 1;
+        if (last >= 0 && out.charAt(last) == from) {
+            out.setCharAt(last, to);
+        } else {
+            out.append(to);
+        }
+    }
+}
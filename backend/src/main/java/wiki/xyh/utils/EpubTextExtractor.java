@@ -0,0 +1,119 @@
+package wiki.xyh.utils;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+import org.apache.commons.io.IOUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: EPUB 文本提取。按 OPF 中 spine 的阅读顺序逐章读取 XHTML 的可见文本：
+ *               以 ZIP 中央目录随机访问，只在读到某一章时解压该章，堆上同时只有一章的内容，
+ *               不再先把整本书的 XML / HTML 条目全部解压到内存。
+ *               manifest 中的 href 是相对 OPF 的 URI 引用，按 URI 规则解析（百分号解码、../ 归一化、去掉片段）。
+ *               每章作为一页汇报进度，章节内的 HTML 扫描同样受提取预算与解析期限约束。
+ */
+public final class EpubTextExtractor {
+
+    private static final String CONTAINER = "META-INF/container.xml";
+
+    private EpubTextExtractor() {
+    }
+
+    /**
+     * 提取全书文本，章节之间以换行分隔；不是有效的 EPUB 时返回 null。
+     *
+     * @param source  提取源
+     * @param context 提取上下文
+     */
+    public static String extract(ExtractSource source, ExtractContext context) throws IOException {
+        try (ZipFile zip = open(source)) {
+            Document container = xml(zip, CONTAINER);
+            Element rootFile = container == null ? null : container.selectFirst("rootfile");
+            String opfPath = rootFile == null ? null : rootFile.attr("full-path");
+            Document opf = opfPath == null || opfPath.isEmpty() ? null : xml(zip, opfPath);
+            if (opf == null) {
+                return null;
+            }
+
+            Map<String, String> manifest = new HashMap<>();
+            for (Element item : opf.select("manifest > item")) {
+                manifest.put(item.attr("id"), item.attr("href"));
+            }
+            List<Element> spine = opf.select("spine > itemref");
+            int chapters = context.pageLimit(spine.size());
+            context.setTotalPages(chapters);
+
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < chapters; i++) {
+                String href = manifest.get(spine.get(i).attr("idref"));
+                ZipArchiveEntry entry = href == null ? null : zip.getEntry(resolve(opfPath, href));
+                if (entry != null) {
+                    byte[] chapter;
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        chapter = IOUtils.toByteArray(in);
+                    }
+                    String text = HtmlTextExtractor.extract(ExtractSource.of(chapter), EncodeUtils.CODE_UTF8, context);
+                    if (text != null && !text.isEmpty()) {
+                        if (out.length() > 0) {
+                            out.append('\n');
+                        }
+                        out.append(text);
+                    }
+                }
+                context.pageDone();
+                if (i < chapters - 1 && context.shouldStop(out.length())) {
+                    break;
+                }
+            }
+            return out.toString();
+        }
+    }
+
+    private static ZipFile open(ExtractSource source) throws IOException {
+        return source.isFile()
+                ? ZipFile.builder().setFile(source.file()).get()
+                : ZipFile.builder().setSeekableByteChannel(new SeekableInMemoryByteChannel(source.bytes())).get();
+    }
+
+    private static Document xml(ZipFile zip, String name) throws IOException {
+        ZipArchiveEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "", Parser.xmlParser());
+        }
+    }
+
+    /**
+     * 把 manifest 中相对 OPF 的 href 解析为 ZIP 条目名。
+     */
+    static String resolve(String opfPath, String href) {
+        try {
+            URI base = new URI(null, null, "/" + opfPath, null);
+            String path = base.resolve(new URI(href.trim())).getPath();
+            if (path != null) {
+                return path.startsWith("/") ? path.substring(1) : path;
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // 不合规的 href（如含未转义的空格）按字面拼接
+        }
+        int slash = opfPath.lastIndexOf('/');
+        return (slash >= 0 ? opfPath.substring(0, slash + 1) : "") + href;
+    }
+}
@@ -0,0 +1,291 @@
+package wiki.xyh.utils;
+
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 提取准入控制。每个文件进入解析前按“文件大小 × 格式成本系数”估算解析时的堆占用，
+ *               所有在途文件的估算值之和不超过全局预算；同时按格式分舱（PDF / 表格 / Office / 文本 / 其他）
+ *               限制并发数，一种格式的突发流量不会占满全部解析能力。
+ *               超出预算时最多排队 waitMs，仍无法进入则拒绝（由调用方返回 429 与 Retry-After），
+ *               让服务在过载时保持满负荷吞吐，而不是所有请求一起进入解析后 OOM 或陷入 GC。
+ */
+public class ExtractAdmission {
+
+    /**
+     * 一直等待，不拒绝（异步任务已经持久化排队，只需要限流）
+     */
+    public static final long WAIT_FOREVER = -1L;
+
+    /**
+     * 格式分舱
+     */
+    public enum Bulkhead {
+        /** PDF / OFD：对象图、字体、逐页解析 */
+        PDF,
+        /** XLS / XLSX：共享字符串表、行数多 */
+        SHEET,
+        /** DOC / DOCX / PPT / PPTX / MSG / EPUB */
+        OFFICE,
+        /** TXT / HTML / RTF / XML：整体解码为字符串，HTML 另建 DOM */
+        TEXT,
+        /** UNKNOWN（回退路由会依次尝试多个解析器）、图片等 */
+        OTHER;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final long maxInflightCost;
+    private final int retryAfterSeconds;
+    private final Map<Bulkhead, Semaphore> bulkheads = new EnumMap<>(Bulkhead.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long inflightCost;
+    private final AtomicInteger inflightFiles = new AtomicInteger();
+
+    /**
+     * @param maxInflightCost   所有在途文件估算成本（字节）之和的上限，小于等于 0 表示不限制
+     * @param concurrency       各分舱的最大并发数，未配置或小于等于 0 表示不限制
+     * @param retryAfterSeconds 拒绝时建议客户端的重试间隔（秒）
+     */
+    public ExtractAdmission(long maxInflightCost, Map<Bulkhead, Integer> concurrency, int retryAfterSeconds) {
+        this.maxInflightCost = maxInflightCost > 0 ? maxInflightCost : Long.MAX_VALUE;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        for (Map.Entry<Bulkhead, Integer> entry : concurrency.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() > 0) {
+                // 公平模式：先排队的先进入，避免大文件长期排不上
+                bulkheads.put(entry.getKey(), new Semaphore(entry.getValue(), true));
+            }
+        }
+    }
+
+    /**
+     * 文件类型所属的分舱。
+     */
+    public static Bulkhead bulkheadOf(FileTypeDetector.FileType type) {
+        switch (type) {
+            case PDF:
+            case OFD:
+                return Bulkhead.PDF;
+            case XLS:
+            case XLSX:
+                return Bulkhead.SHEET;
+            case DOC:
+            case DOCX:
+            case PPT:
+            case PPTX:
+            case MSG:
+            case EPUB:
+                return Bulkhead.OFFICE;
+            case TXT:
+            case HTML:
+            case RTF:
+            case XML:
+                return Bulkhead.TEXT;
+            default:
+                return Bulkhead.OTHER;
+        }
+    }
+
+    /**
+     * 解析时堆占用相对文件大小的估算倍数。
+     */
+    static double costFactor(FileTypeDetector.FileType type) {
+        switch (type) {
+            case PDF:
+            case OFD:
+            case HTML:
+            case UNKNOWN:
+                return 4.0;
+            case XLSX:
+            case DOC:
+            case PPT:
+            case PPTX:
+            case TXT:
+            case RTF:
+            case XML:
+                return 3.0;
+            case JPEG:
+                return 1.0;
+            default:
+                return 2.0;
+        }
+    }
+
+    /**
+     * 估算成本，单个文件最多占满全部预算（否则永远无法进入）。
+     */
+    long cost(FileTypeDetector.FileType type, long bytes) {
+        return (long) Math.min((double) maxInflightCost, Math.max(1L, bytes) * costFactor(type));
+    }
+
+    /**
+     * 申请进入解析，返回的 Permit 必须在解析结束后关闭。
+     *
+     * @param type   文件类型
+     * @param bytes  文件大小
+     * @param waitMs 最长排队时间（毫秒），WAIT_FOREVER 表示一直等待
+     * @return 准入凭证
+     * @throws RejectedException     排队超时
+     * @throws InterruptedIOException 排队时线程被中断
+     */
+    public Permit acquire(FileTypeDetector.FileType type, long bytes, long waitMs) throws InterruptedIOException {
+        Bulkhead bulkhead = bulkheadOf(type);
+        long cost = cost(type, bytes);
+        long start = System.nanoTime();
+        long deadline = waitMs < 0 ? Long.MAX_VALUE : start + TimeUnit.MILLISECONDS.toNanos(waitMs);
+
+        Semaphore semaphore = bulkheads.get(bulkhead);
+        boolean reserved = false;
+        try {
+            if (semaphore != null && !tryAcquire(semaphore, deadline)) {
+                throw reject(bulkhead, start, "格式并发已满");
+            }
+            try {
+                reserved = reserve(cost, deadline);
+            } finally {
+                if (!reserved && semaphore != null) {
+                    semaphore.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待解析准入时被中断");
+        }
+        if (!reserved) {
+            throw reject(bulkhead, start, "在途解析内存已满");
+        }
+        inflightFiles.incrementAndGet();
+        ExtractMetrics.recordAdmission(bulkhead.tag(), ExtractMetrics.ADMISSION_ADMITTED, System.nanoTime() - start);
+        return new Permit(this, semaphore, cost);
+    }
+
+    private static boolean tryAcquire(Semaphore semaphore, long deadline) throws InterruptedException {
+        if (deadline == Long.MAX_VALUE) {
+            semaphore.acquire();
+            return true;
+        }
+        return semaphore.tryAcquire(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 预留成本：在途为空时总能进入，否则等到预留后不超过预算。
+     */
+    private boolean reserve(long cost, long deadline) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inflightCost > 0 && inflightCost + cost > maxInflightCost) {
+                if (deadline == Long.MAX_VALUE) {
+                    released.await();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    released.awaitNanos(remaining);
+                }
+            }
+            inflightCost += cost;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Semaphore semaphore, long cost) {
+        inflightFiles.decrementAndGet();
+        lock.lock();
+        try {
+            inflightCost -= cost;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    private RejectedException reject(Bulkhead bulkhead, long start, String reason) {
+        ExtractMetrics.recordAdmission(bulkhead.tag(), ExtractMetrics.ADMISSION_REJECTED, System.nanoTime() - start);
+        return new RejectedException("服务繁忙（" + reason + "），请 " + retryAfterSeconds + " 秒后重试",
+                retryAfterSeconds);
+    }
+
+    /**
+     * 在途文件的估算成本之和（字节）
+     */
+    public long getInflightCost() {
+        lock.lock();
+        try {
+            return inflightCost;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在途文件数
+     */
+    public int getInflightFiles() {
+        return inflightFiles.get();
+    }
+
+    /**
+     * 准入凭证，关闭时归还并发数与成本预算；重复关闭无副作用。
+     */
+    public static final class Permit implements AutoCloseable {
+        private final ExtractAdmission admission;
+        private final Semaphore semaphore;
+        private final long cost;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(ExtractAdmission admission, Semaphore semaphore, long cost) {
+            this.admission = admission;
+            this.semaphore = semaphore;
+            this.cost = cost;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                admission.release(semaphore, cost);
+            }
+        }
+    }
+
+    /**
+     * 排队超时被拒绝。
+     */
+    public static class RejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int retryAfterSeconds;
+
+        public RejectedException(String message, int retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        /**
+         * 建议的重试间隔（秒），用于 Retry-After 响应头
+         */
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package wiki.xyh.utils;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 单次提取的预算（预览模式）：最大页数、最大字符数、最大行数、最长耗时。
+ *               各解析器在页 / 段落 / 行等边界检查预算，达到任一上限即停止读取并返回已提取的部分，
+ *               同时在 ExtractContext 上标记结果被截断。分类、摘要等只需要开头几千字的调用方，
+ *               只需付出完整提取的一小部分代价。
+ */
+public final class ExtractBudget {
+
+    /**
+     * 不限制
+     */
+    public static final ExtractBudget UNLIMITED =
+            new ExtractBudget(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final int maxPages;
+    private final int maxChars;
+    private final int maxRows;
+    private final long maxTimeMs;
+
+    private ExtractBudget(int maxPages, int maxChars, int maxRows, long maxTimeMs) {
+        this.maxPages = maxPages;
+        this.maxChars = maxChars;
+        this.maxRows = maxRows;
+        this.maxTimeMs = maxTimeMs;
+    }
+
+    /**
+     * 各参数小于等于 0 表示该项不限制。
+     *
+     * @param maxPages  最大页数（PDF / OFD 页、幻灯片）
+     * @param maxChars  最大字符数，最终结果按该值截断
+     * @param maxRows   表格最大行数（所有工作表合计），与 SheetLimits 默认上限取较小者
+     * @param maxTimeMs 最长解析耗时（毫秒），从开始解析时计时
+     */
+    public static ExtractBudget of(int maxPages, int maxChars, int maxRows, long maxTimeMs) {
+        if (maxPages <= 0 && maxChars <= 0 && maxRows <= 0 && maxTimeMs <= 0) {
+            return UNLIMITED;
+        }
+        return new ExtractBudget(
+                maxPages > 0 ? maxPages : Integer.MAX_VALUE,
+                maxChars > 0 ? maxChars : Integer.MAX_VALUE,
+                maxRows > 0 ? maxRows : Integer.MAX_VALUE,
+                maxTimeMs > 0 ? maxTimeMs : Long.MAX_VALUE);
+    }
+
+    /**
+     * 是否没有任何限制。有限制的提取结果不是完整内容，不能写入结果缓存。
+     */
+    public boolean isUnlimited() {
+        return maxPages == Integer.MAX_VALUE && maxChars == Integer.MAX_VALUE
+                && maxRows == Integer.MAX_VALUE && maxTimeMs == Long.MAX_VALUE;
+    }
+
+    public boolean hasCharLimit() {
+        return maxChars != Integer.MAX_VALUE;
+    }
+
+    public boolean hasTimeLimit() {
+        return maxTimeMs != Long.MAX_VALUE;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public long getMaxTimeMs() {
+        return maxTimeMs;
+    }
+}
@@ -0,0 +1,241 @@
+package wiki.xyh.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 单次提取的上下文，显式地沿调用链传给各解析器（不使用 ThreadLocal），
+ *               解析器在此汇报进度，异步任务的状态查询从这里读取已完成页数与已处理字节数。
+ *               预览请求的预算（ExtractBudget）也放在这里，解析器据此提前停止并标记结果被截断。
+ *               服务端的解析期限（deadline）与预算的耗时上限一起在同样的检查点生效，到期时除截断外另行标记超时，
+ *               调用方得到已提取的部分文本，解析线程不会一直阻塞在病态文件上。
+ *               所有字段都可被其他线程并发读取。
+ */
+public final class ExtractContext {
+
+    private final ExtractBudget budget;
+    private final long deadlineNanos;
+    private volatile long startNanos = System.nanoTime();
+    private volatile boolean truncated;
+    private volatile boolean timedOut;
+    private volatile boolean cancelled;
+
+    private volatile long sourceSize;
+    private volatile int totalPages;
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private volatile long bytesProcessed;
+
+    public ExtractContext() {
+        this(ExtractBudget.UNLIMITED);
+    }
+
+    /**
+     * @param budget 提取预算，null 表示不限制
+     */
+    public ExtractContext(ExtractBudget budget) {
+        this(budget, 0L);
+    }
+
+    /**
+     * @param budget     提取预算，null 表示不限制
+     * @param deadlineMs 解析期限（毫秒），从开始解析时计时，小于等于 0 表示不限制
+     */
+    public ExtractContext(ExtractBudget budget, long deadlineMs) {
+        this.budget = budget == null ? ExtractBudget.UNLIMITED : budget;
+        this.deadlineNanos = deadlineMs > 0 ? deadlineMs * 1_000_000L : Long.MAX_VALUE;
+    }
+
+    /**
+     * 派生一个独立的上下文：预算、解析期限与开始时间沿用当前上下文，进度与截断 / 超时标记各自独立。
+     * 用于回退路由等同时尝试多个解析器的场景，未被采信的解析器不影响最终结果，采信后用 {@link #adopt} 合并。
+     */
+    public ExtractContext fork() {
+        ExtractContext child = new ExtractContext(budget, getDeadlineMs());
+        child.startNanos = startNanos;
+        child.sourceSize = sourceSize;
+        return child;
+    }
+
+    /**
+     * 合并被采信的派生上下文的进度与截断 / 超时标记。
+     */
+    public void adopt(ExtractContext child) {
+        totalPages = child.totalPages;
+        pagesDone.set(child.pagesDone.get());
+        bytesProcessed = child.bytesProcessed;
+        if (child.truncated) {
+            truncated = true;
+        }
+        if (child.timedOut) {
+            timedOut = true;
+        }
+    }
+
+    /**
+     * 开始解析，记录输入大小。
+     *
+     * @param sourceSize 输入字节数
+     */
+    public void start(long sourceSize) {
+        this.startNanos = System.nanoTime();
+        this.truncated = false;
+        this.timedOut = false;
+        this.sourceSize = sourceSize;
+        this.totalPages = 0;
+        this.pagesDone.set(0);
+        this.bytesProcessed = 0L;
+    }
+
+    /**
+     * 解析器得知总页数（PDF 页 / OFD 页 / 工作表等）时调用。
+     */
+    public void setTotalPages(int totalPages) {
+        this.totalPages = Math.max(0, totalPages);
+        this.pagesDone.set(0);
+    }
+
+    /**
+     * 完成一页。已处理字节数按页数比例估算，分页格式没有逐页的字节偏移可用。
+     */
+    public void pageDone() {
+        int done = pagesDone.incrementAndGet();
+        int total = totalPages;
+        if (total > 0) {
+            bytesProcessed = sourceSize * Math.min(done, total) / total;
+        }
+    }
+
+    /**
+     * 同步在其他进程中解析的进度（子进程解析时由父进程按子进程回传的值调用）。
+     */
+    public void relayProgress(int totalPages, int pagesDone, long bytesProcessed) {
+        this.totalPages = Math.max(0, totalPages);
+        this.pagesDone.set(pagesDone);
+        this.bytesProcessed = bytesProcessed;
+    }
+
+    /**
+     * 解析结束，进度补齐到 100%。
+     */
+    public void finish() {
+        int total = totalPages;
+        if (total > 0) {
+            pagesDone.set(total);
+        }
+        bytesProcessed = sourceSize;
+    }
+
+    public ExtractBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * 预算内允许处理的页数，total 超出预算时标记截断。
+     *
+     * @param total 文档总页数
+     */
+    public int pageLimit(int total) {
+        if (total > budget.getMaxPages()) {
+            truncated = true;
+            return budget.getMaxPages();
+        }
+        return total;
+    }
+
+    /**
+     * 取消本次解析：解析器在下一个检查点（{@link #isTimeUp} / {@link #shouldStop}）停止。
+     * POI、PDFBox 等不响应线程中断，回退路由用它让未被采信的候选尽早结束并释放内存。
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 解析耗时是否已超出预算或解析期限，或已被取消；超出期限时标记超时。
+     */
+    public boolean isTimeUp() {
+        if (cancelled) {
+            return true;
+        }
+        if (!budget.hasTimeLimit() && deadlineNanos == Long.MAX_VALUE) {
+            return false;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed >= deadlineNanos) {
+            timedOut = true;
+            return true;
+        }
+        return budget.hasTimeLimit() && elapsed >= budget.getMaxTimeMs() * 1_000_000L;
+    }
+
+    /**
+     * 解析器在页、段落、行等边界调用：已输出 chars 个字符后是否应停止。
+     * 字符数达到预算或超时时返回 true 并标记截断。
+     *
+     * @param chars 已输出的字符数
+     */
+    public boolean shouldStop(long chars) {
+        if (chars >= budget.getMaxChars() || isTimeUp()) {
+            truncated = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 标记结果被截断（达到页数 / 行数等上限）。
+     */
+    public void markTruncated() {
+        truncated = true;
+    }
+
+    /**
+     * 标记超出解析期限（子进程中解析时由父进程同步结果），同时视为截断。
+     */
+    public void markTimedOut() {
+        timedOut = true;
+        truncated = true;
+    }
+
+    /**
+     * 结果是否因预算被截断，不是完整内容。
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 是否因超出解析期限而停止，此时结果是期限内提取的部分内容，不能写入结果缓存。
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 解析期限（毫秒），0 表示不限制。
+     */
+    public long getDeadlineMs() {
+        return deadlineNanos == Long.MAX_VALUE ? 0L : deadlineNanos / 1_000_000L;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public int getPagesDone() {
+        return pagesDone.get();
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+}
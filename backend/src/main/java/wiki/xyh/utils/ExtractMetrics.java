@@ -0,0 +1,301 @@
+package wiki.xyh.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 提取流水线指标。GetTypeAndContent 是静态工具类，这里同样以静态方法记录到
+ *               Micrometer 全局注册表（Spring Boot 默认会把 Prometheus 等注册表挂到全局注册表上），
+ *               不在 Spring 容器中运行时（命令行、基准测试）全局注册表为空，记录开销可以忽略。
+ *
+ *               指标一览：
+ *               extract.stage          各阶段耗时（stage = charset / type / parse / mess），按文件类型打标签，带直方图
+ *               extract.file           单文件端到端耗时，按文件类型打标签，带直方图
+ *               extract.bytes.in       输入字节数
+ *               extract.chars.out      输出字符数
+ *               extract.failures       失败次数，按文件类型和原因打标签
+ *               extract.fallback.depth UNKNOWN 类型逐个尝试解析的次数
+ *               extract.cache.*        结果缓存命中 / 未命中 / 淘汰 / 占用字节
+ *               extract.admission      准入排队耗时，按分舱和结果（admitted / rejected）打标签
+ *               extract.admission.inflight.* 在途文件数与估算成本
+ *
+ *               解析子进程中（见 ExtractWorkerPool）没有可被采集的注册表，调用 captureEvents 后 stage / file /
+ *               failures / fallback.depth 的记录暂存为事件，随响应回传父进程，由父进程 replay 到自己的注册表。
+ */
+public final class ExtractMetrics {
+
+    public static final String STAGE_CHARSET = "charset";
+    public static final String STAGE_TYPE = "type";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_MESS = "mess";
+
+    public static final String CAUSE_EMPTY = "empty";
+    public static final String CAUSE_UNRECOGNIZED = "unrecognized";
+    public static final String CAUSE_TIMEOUT = "timeout";
+    public static final String CAUSE_TOO_LARGE = "too_large";
+
+    public static final String ADMISSION_ADMITTED = "admitted";
+    public static final String ADMISSION_REJECTED = "rejected";
+
+    private static final MeterRegistry REGISTRY = Metrics.globalRegistry;
+
+    // 按标签组合缓存 Meter，避免每次记录都走注册表查找
+    private static final Map<String, Timer> STAGE_TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> FILE_TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, DistributionSummary> BYTES_IN = new ConcurrentHashMap<>();
+    private static final Map<String, DistributionSummary> CHARS_OUT = new ConcurrentHashMap<>();
+    private static final Map<String, DistributionSummary> FALLBACK_DEPTH = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> FAILURES = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> ADMISSION_WAITS = new ConcurrentHashMap<>();
+
+    /**
+     * 暂存的事件，为 null 时直接记录到注册表
+     */
+    private static volatile Queue<Event> captured;
+
+    private ExtractMetrics() {
+    }
+
+    /**
+     * 此后的提取指标暂存为事件而不写注册表，解析子进程启动时调用。
+     */
+    public static void captureEvents() {
+        captured = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * 取出并清空暂存的事件，未开启暂存时返回空列表。
+     */
+    static List<Event> drainEvents() {
+        List<Event> events = new ArrayList<>();
+        Queue<Event> queue = captured;
+        if (queue != null) {
+            Event event;
+            while ((event = queue.poll()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 把子进程回传的事件记录到当前进程的注册表。
+     */
+    static void replay(Event event) {
+        switch (event.kind) {
+            case Event.STAGE:
+                recordStage(event.label, event.type, event.v1);
+                break;
+            case Event.FILE:
+                recordFile(event.type, event.v1, event.v2, event.v3);
+                break;
+            case Event.FAILURE:
+                recordFailure(event.type, event.label);
+                break;
+            case Event.FALLBACK_DEPTH:
+                recordFallbackDepth(event.type, (int) event.v1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static boolean capture(byte kind, String type, String label, long v1, long v2, long v3) {
+        Queue<Event> queue = captured;
+        if (queue == null) {
+            return false;
+        }
+        queue.add(new Event(kind, type, label, v1, v2, v3));
+        return true;
+    }
+
+    /**
+     * 记录单个阶段的耗时。
+     *
+     * @param stage 阶段名
+     * @param type  文件类型（小写）
+     * @param nanos 耗时（纳秒）
+     */
+    public static void recordStage(String stage, String type, long nanos) {
+        if (capture(Event.STAGE, type, stage, nanos, 0L, 0L)) {
+            return;
+        }
+        STAGE_TIMERS.computeIfAbsent(stage + '|' + type, k -> Timer.builder("extract.stage")
+                        .description("提取流水线各阶段耗时")
+                        .tag("stage", stage)
+                        .tag("type", type)
+                        .publishPercentileHistogram()
+                        .register(REGISTRY))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次完整提取：端到端耗时、输入字节数、输出字符数。
+     *
+     * @param type     文件类型（小写）
+     * @param nanos    耗时（纳秒）
+     * @param bytesIn  输入字节数
+     * @param charsOut 输出字符数，无内容时为 0
+     */
+    public static void recordFile(String type, long nanos, long bytesIn, long charsOut) {
+        if (capture(Event.FILE, type, "", nanos, bytesIn, charsOut)) {
+            return;
+        }
+        FILE_TIMERS.computeIfAbsent(type, k -> Timer.builder("extract.file")
+                        .description("单文件提取耗时")
+                        .tag("type", type)
+                        .publishPercentileHistogram()
+                        .register(REGISTRY))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        BYTES_IN.computeIfAbsent(type, k -> DistributionSummary.builder("extract.bytes.in")
+                        .description("输入文件字节数")
+                        .baseUnit("bytes")
+                        .tag("type", type)
+                        .register(REGISTRY))
+                .record(bytesIn);
+        CHARS_OUT.computeIfAbsent(type, k -> DistributionSummary.builder("extract.chars.out")
+                        .description("提取出的文本字符数")
+                        .baseUnit("chars")
+                        .tag("type", type)
+                        .register(REGISTRY))
+                .record(charsOut);
+    }
+
+    /**
+     * 记录 UNKNOWN 类型逐个尝试解析的次数。
+     *
+     * @param resolvedType 最终采信的类型（小写），全部失败时为 unknown
+     * @param depth        尝试次数
+     */
+    public static void recordFallbackDepth(String resolvedType, int depth) {
+        if (capture(Event.FALLBACK_DEPTH, resolvedType, "", depth, 0L, 0L)) {
+            return;
+        }
+        FALLBACK_DEPTH.computeIfAbsent(resolvedType, k -> DistributionSummary.builder("extract.fallback.depth")
+                        .description("UNKNOWN 类型逐个尝试解析的次数")
+                        .tag("type", resolvedType)
+                        .register(REGISTRY))
+                .record(depth);
+    }
+
+    /**
+     * 记录一次失败。
+     *
+     * @param type  文件类型（小写），未识别时为 unknown
+     * @param cause 原因：empty / unrecognized / timeout 或异常类名
+     */
+    public static void recordFailure(String type, String cause) {
+        if (capture(Event.FAILURE, type, cause, 0L, 0L, 0L)) {
+            return;
+        }
+        FAILURES.computeIfAbsent(type + '|' + cause, k -> Counter.builder("extract.failures")
+                        .description("提取失败次数")
+                        .tag("type", type)
+                        .tag("cause", cause)
+                        .register(REGISTRY))
+                .increment();
+    }
+
+    /**
+     * 以异常类型作为失败原因记录。
+     */
+    public static void recordFailure(String type, Throwable e) {
+        recordFailure(type, e.getClass().getSimpleName());
+    }
+
+    /**
+     * 注册结果缓存的统计指标，指标值在采集时从缓存对象读取。
+     *
+     * @param cache 结果缓存
+     */
+    public static void bindCache(ExtractResultCache cache) {
+        FunctionCounter.builder("extract.cache.hits", cache, ExtractResultCache::getHitCount)
+                .description("结果缓存命中次数")
+                .register(REGISTRY);
+        FunctionCounter.builder("extract.cache.misses", cache, ExtractResultCache::getMissCount)
+                .description("结果缓存未命中次数")
+                .register(REGISTRY);
+        FunctionCounter.builder("extract.cache.evictions", cache, ExtractResultCache::getEvictionCount)
+                .description("结果缓存淘汰次数")
+                .register(REGISTRY);
+        Gauge.builder("extract.cache.weighted.size", cache, ExtractResultCache::getWeightedSize)
+                .description("结果缓存估算占用字节数")
+                .baseUnit("bytes")
+                .register(REGISTRY);
+        Gauge.builder("extract.cache.entries", cache, ExtractResultCache::size)
+                .description("结果缓存条目数")
+                .register(REGISTRY);
+    }
+
+    /**
+     * 记录一次准入结果及排队耗时。
+     *
+     * @param bulkhead 分舱（小写）
+     * @param outcome  admitted / rejected
+     * @param nanos    排队耗时（纳秒）
+     */
+    public static void recordAdmission(String bulkhead, String outcome, long nanos) {
+        ADMISSION_WAITS.computeIfAbsent(bulkhead + '|' + outcome, k -> Timer.builder("extract.admission")
+                        .description("准入排队耗时")
+                        .tag("bulkhead", bulkhead)
+                        .tag("outcome", outcome)
+                        .register(REGISTRY))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 注册准入控制的在途指标，指标值在采集时读取。
+     *
+     * @param admission 准入控制
+     */
+    public static void bindAdmission(ExtractAdmission admission) {
+        Gauge.builder("extract.admission.inflight.files", admission, ExtractAdmission::getInflightFiles)
+                .description("正在解析的文件数")
+                .register(REGISTRY);
+        Gauge.builder("extract.admission.inflight.cost", admission, ExtractAdmission::getInflightCost)
+                .description("正在解析的文件估算堆占用之和")
+                .baseUnit("bytes")
+                .register(REGISTRY);
+    }
+
+    /**
+     * 暂存的一次记录：label 为阶段名或失败原因，v1 ~ v3 依次为耗时 / 深度、输入字节数、输出字符数。
+     */
+    static final class Event {
+        static final byte STAGE = 1;
+        static final byte FILE = 2;
+        static final byte FAILURE = 3;
+        static final byte FALLBACK_DEPTH = 4;
+
+        final byte kind;
+        final String type;
+        final String label;
+        final long v1;
+        final long v2;
+        final long v3;
+
+        Event(byte kind, String type, String label, long v1, long v2, long v3) {
+            this.kind = kind;
+            this.type = type;
+            this.label = label;
+            this.v1 = v1;
+            this.v2 = v2;
+            this.v3 = v3;
+        }
+    }
+}
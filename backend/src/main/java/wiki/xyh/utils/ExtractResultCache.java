@@ -0,0 +1,248 @@
+package wiki.xyh.utils;
+
+import wiki.xyh.bean.TypeAndContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 基于内容摘要（SHA-256）的提取结果缓存，按字节预算限制内存占用。
+ *               淘汰策略为分段 LRU（SLRU）：新条目先进入试用段，再次命中后晋升到保护段，
+ *               一次性上传的大量新文件只会在试用段内互相淘汰，不会冲掉反复上传的热点文档。
+ */
+public class ExtractResultCache {
+
+    /**
+     * 每个条目的固定开销估算（对象头、引用、Map 节点等），单位字节
+     */
+    private static final long ENTRY_OVERHEAD = 160L;
+
+    /**
+     * 保护段占总预算的比例
+     */
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long maxBytes;
+    private final long maxProtectedBytes;
+    private final long maxEntryBytes;
+
+    // 两个段都按访问顺序排列，头部为最久未使用的条目；所有访问都在 this 锁内完成
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(64, 0.75f, true);
+    private long probationBytes;
+    private long protectedBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxBytes 缓存字节预算，小于等于 0 表示禁用缓存
+     */
+    public ExtractResultCache(long maxBytes) {
+        this.maxBytes = Math.max(0L, maxBytes);
+        this.maxProtectedBytes = (long) (this.maxBytes * PROTECTED_RATIO);
+        // 单个条目最多占预算的 1/4，避免一个超大文档把整个缓存冲掉
+        this.maxEntryBytes = this.maxBytes / 4;
+    }
+
+    /**
+     * 计算内容摘要，作为缓存 key。
+     *
+     * @param bytes 文件内容
+     * @return SHA-256 十六进制字符串
+     */
+    public static String digest(byte[] bytes) {
+        MessageDigest md = newDigest();
+        md.update(bytes);
+        return toHex(md.digest());
+    }
+
+    /**
+     * 计算提取源的内容摘要，文件源按 64KB 分块流式读取，不整体读入内存。
+     *
+     * @param source 提取源
+     * @return SHA-256 十六进制字符串
+     */
+    public static String digest(ExtractSource source) throws IOException {
+        if (!source.isFile()) {
+            return digest(source.bytes());
+        }
+        MessageDigest md = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = source.openStream()) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                md.update(buffer, 0, n);
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", e);
+        }
+    }
+
+    static String toHex(byte[] hash) {
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[hash[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 是否启用（字节预算大于 0）。
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * 查询缓存，命中时返回结果副本。
+     *
+     * @param key 内容摘要
+     * @return 缓存的提取结果，未命中返回 null
+     */
+    public TypeAndContent get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = protectedSegment.get(key);
+            if (entry == null) {
+                entry = probation.remove(key);
+                if (entry != null) {
+                    // 试用段再次命中，晋升到保护段
+                    probationBytes -= entry.weight;
+                    protectedSegment.put(key, entry);
+                    protectedBytes += entry.weight;
+                    demoteProtectedOverflow();
+                }
+            }
+        }
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return new TypeAndContent(entry.type, entry.content);
+    }
+
+    /**
+     * 写入缓存，超出预算时从试用段最久未使用的条目开始淘汰。
+     * 内容为 null 的结果（解析器吞掉异常后的失败结果）不缓存，下次上传同一文件时重新解析。
+     *
+     * @param key   内容摘要
+     * @param value 提取结果
+     */
+    public void put(String key, TypeAndContent value) {
+        if (!isEnabled() || key == null || value == null || value.getContent() == null) {
+            return;
+        }
+        Entry entry = new Entry(value.getType(), value.getContent());
+        if (entry.weight > maxEntryBytes) {
+            return;
+        }
+        synchronized (this) {
+            if (protectedSegment.containsKey(key) || probation.containsKey(key)) {
+                return;
+            }
+            probation.put(key, entry);
+            probationBytes += entry.weight;
+            evictOverflow();
+        }
+    }
+
+    /**
+     * 保护段超出比例时，把最久未使用的条目降级回试用段。
+     */
+    private void demoteProtectedOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = protectedSegment.entrySet().iterator();
+        while (protectedBytes > maxProtectedBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            protectedBytes -= eldest.getValue().weight;
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationBytes += eldest.getValue().weight;
+        }
+        evictOverflow();
+    }
+
+    /**
+     * 总量超出预算时淘汰，优先淘汰试用段，试用段为空时才淘汰保护段。
+     */
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = probation.entrySet().iterator();
+        while (probationBytes + protectedBytes > maxBytes && it.hasNext()) {
+            probationBytes -= it.next().getValue().weight;
+            it.remove();
+            evictionCount.increment();
+        }
+        it = protectedSegment.entrySet().iterator();
+        while (probationBytes + protectedBytes > maxBytes && it.hasNext()) {
+            protectedBytes -= it.next().getValue().weight;
+            it.remove();
+            evictionCount.increment();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 当前缓存估算占用字节数。
+     */
+    public synchronized long getWeightedSize() {
+        return probationBytes + protectedBytes;
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 缓存条目，只保存类型与文本，权重按 UTF-16 字符数估算。
+     */
+    private static final class Entry {
+        private final String type;
+        private final String content;
+        private final long weight;
+
+        private Entry(String type, String content) {
+            this.type = type;
+            this.content = content;
+            long chars = 64 + (type == null ? 0 : type.length()) + (content == null ? 0 : content.length());
+            this.weight = ENTRY_OVERHEAD + chars * 2;
+        }
+    }
+}
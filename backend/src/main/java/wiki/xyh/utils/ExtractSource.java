@@ -0,0 +1,99 @@
+package wiki.xyh.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 提取输入源，统一表示内存中的 byte[] 或落盘的临时文件。
+ *               大文件以文件形式交给各解析器（PDFBox / POI / OFDReader 都支持随机访问文件），
+ *               类型与编码探测通过只读内存映射完成，整个文件不会被读入堆内存。
+ */
+public final class ExtractSource {
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] bytes;
+    private final File file;
+    private ByteBuffer mapped;
+
+    private ExtractSource(byte[] bytes, File file) {
+        this.bytes = bytes;
+        this.file = file;
+    }
+
+    public static ExtractSource of(byte[] bytes) {
+        return new ExtractSource(bytes, null);
+    }
+
+    public static ExtractSource of(File file) {
+        return new ExtractSource(null, file);
+    }
+
+    /**
+     * 是否为落盘文件
+     */
+    public boolean isFile() {
+        return file != null;
+    }
+
+    /**
+     * 内存中的字节内容，文件源返回 null
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * 落盘文件，内存源返回 null
+     */
+    public File file() {
+        return file;
+    }
+
+    public long size() {
+        return file != null ? file.length() : bytes.length;
+    }
+
+    /**
+     * 返回一个只读 ByteBuffer 视图，用于魔数 / 中央目录 / 编码探测。
+     * 文件源使用内存映射，只有真正被访问的页会进入物理内存。
+     * 超过 2GB 的文件只映射前 2GB，此时 ZIP 中央目录探测会退化为本地文件头扫描。
+     * Java 8 没有公开的解除映射接口，映射随本对象被 GC 回收时才释放；
+     * 在此之前 Windows 上无法删除该文件（调用方删除失败时改为 deleteOnExit）。
+     */
+    public ByteBuffer buffer() {
+        if (file == null) {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+        if (mapped == null) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                long length = Math.min(channel.size(), Integer.MAX_VALUE);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("文件映射失败: " + file.getName(), e);
+            }
+        }
+        return mapped.duplicate();
+    }
+
+    /**
+     * 打开一个新的顺序读取流，调用方负责关闭。
+     */
+    public InputStream openStream() throws IOException {
+        if (file == null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return new BufferedInputStream(new FileInputStream(file), STREAM_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,557 @@
+package wiki.xyh.utils;
+
+import wiki.xyh.bean.TypeAndContent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarFile;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 解析子进程池。getFileTypeAndContent 在预先启动的子 JVM 中执行，父进程经标准输入 / 输出管道
+ *               发送请求（落盘文件传路径，内存源传字节）并读取结果。子进程有独立的堆上限并在 OOM 时直接退出，
+ *               单个病态 DOC / PDF 的巨量分配或死循环只会拖垮一个子进程，不影响 Spring Boot 主进程与其他请求；
+ *               每个子进程的堆小，GC 停顿也小而可预期。
+ *               子进程处理满 maxJobsPerWorker 个文件后退出并由后台线程补充新进程；单次解析超过 timeoutMs
+ *               时强制结束该子进程；异常退出的子进程直接丢弃，下一次借用时按需重建。
+ *               解析期间子进程定期回传进度帧，响应中附带最终进度与子进程内记录的提取指标（见 ExtractMetrics），
+ *               父进程据此更新提取上下文并把指标记录到自己的注册表。
+ */
+public final class ExtractWorkerPool implements Closeable {
+
+    /**
+     * Spring Boot 可执行 jar 中用于指定其他入口类的启动器
+     */
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.PropertiesLauncher";
+
+    private static final byte OP_EXTRACT = 1;
+
+    private static final byte STATUS_OK = 0;
+    private static final byte STATUS_EMPTY = 1;
+    private static final byte STATUS_ERROR = 2;
+
+    /**
+     * 解析期间的进度帧，出现在响应状态之前，可以有多个
+     */
+    private static final byte FRAME_PROGRESS = 16;
+
+    /**
+     * 子进程回传进度的间隔（毫秒）
+     */
+    private static final long PROGRESS_INTERVAL_MS = 500L;
+
+    /**
+     * 错误信息最多回传的字符数
+     */
+    private static final int MAX_ERROR_CHARS = 1000;
+
+    /**
+     * 解析期限之后留给子进程在检查点停下并回传部分结果的时间（毫秒），之后才强制结束
+     */
+    private static final long DEADLINE_GRACE_MS = 5_000L;
+
+    private final List<String> command;
+    private final int maxSize;
+    private final int maxJobsPerWorker;
+    private final long timeoutMs;
+    private final long leaseTimeoutMs;
+
+    /**
+     * 控制同时存在（空闲 + 借出 + 补充中）的子进程数
+     */
+    private final Semaphore permits;
+
+    private final LinkedBlockingDeque<Worker> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * 超时强制结束、补充新进程都在这个线程上执行
+     */
+    private final ScheduledExecutorService housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "extract-worker-housekeeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong killed = new AtomicLong();
+    private final AtomicLong crashed = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * @param mainClass        子进程入口类，入口中调用 {@link #serve(InputStream, OutputStream)}
+     * @param jvmArgs          子进程 JVM 参数（堆上限、GC、系统属性等）
+     * @param maxSize          子进程数
+     * @param maxJobsPerWorker 单个子进程处理的文件数上限，达到后退出重建
+     * @param timeoutMs        单个文件强制结束子进程的期限（毫秒）；提取上下文带解析期限时，
+     *                         取该值与“解析期限 + 宽限时间”的较大者
+     * @param leaseTimeoutMs   等待空闲子进程的超时（毫秒）
+     * @param prewarm          启动时预先创建的子进程数
+     */
+    public ExtractWorkerPool(String mainClass, List<String> jvmArgs, int maxSize, int maxJobsPerWorker,
+                             long timeoutMs, long leaseTimeoutMs, int prewarm) throws IOException {
+        this.command = command(mainClass, jvmArgs);
+        this.maxSize = Math.max(1, maxSize);
+        this.maxJobsPerWorker = Math.max(1, maxJobsPerWorker);
+        this.timeoutMs = timeoutMs;
+        this.leaseTimeoutMs = leaseTimeoutMs;
+        this.permits = new Semaphore(this.maxSize, true);
+        for (int i = 0; i < Math.min(prewarm, this.maxSize); i++) {
+            idle.offerLast(start());
+        }
+    }
+
+    /**
+     * 子进程启动命令：沿用当前 JVM 与类路径；以 Spring Boot 可执行 jar 运行时经 PropertiesLauncher 指定入口类。
+     */
+    private static List<String> command(String mainClass, List<String> jvmArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        String classPath = System.getProperty("java.class.path");
+        command.add("-cp");
+        command.add(classPath);
+        if (isBootJar(classPath)) {
+            command.add("-Dloader.main=" + mainClass);
+            command.add(BOOT_LAUNCHER);
+        } else {
+            command.add(mainClass);
+        }
+        return command;
+    }
+
+    private static boolean isBootJar(String classPath) throws IOException {
+        if (classPath.contains(File.pathSeparator) || !classPath.endsWith(".jar")) {
+            return false;
+        }
+        try (JarFile jar = new JarFile(classPath)) {
+            return jar.getEntry("BOOT-INF/classes/") != null;
+        }
+    }
+
+    private Worker start() throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        started.incrementAndGet();
+        return new Worker(process);
+    }
+
+    /**
+     * 在子进程中提取。context 的预算与解析期限传给子进程，子进程标记的截断与超时、逐页进度同步回 context；
+     * 子进程内记录的提取指标在这里记录到当前进程的注册表。
+     *
+     * @param source  提取源
+     * @param type    父进程已识别的文件类型，为 null 时由子进程识别
+     * @param context 提取上下文
+     * @return 提取结果，解析结果为空时返回 null
+     * @throws IOException 等待子进程超时、解析超时被强制结束、子进程异常退出，或子进程中解析抛出异常
+     */
+    public TypeAndContent extract(ExtractSource source, FileTypeDetector.FileType type, ExtractContext context)
+            throws IOException {
+        context.start(source.size());
+        Worker worker = lease();
+        boolean healthy = false;
+        try {
+            Response response = worker.call(source, type, context);
+            healthy = true;
+            for (ExtractMetrics.Event event : response.events) {
+                ExtractMetrics.replay(event);
+            }
+            if (response.truncated) {
+                context.markTruncated();
+            }
+            if (response.timedOut) {
+                context.markTimedOut();
+            }
+            if (response.status == STATUS_ERROR) {
+                throw new IOException(response.content);
+            }
+            return response.status == STATUS_EMPTY ? null : new TypeAndContent(response.type, response.content);
+        } finally {
+            release(worker, healthy);
+        }
+    }
+
+    private Worker lease() throws IOException {
+        if (closed) {
+            throw new IOException("解析子进程池已关闭");
+        }
+        try {
+            if (!permits.tryAcquire(leaseTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("等待解析子进程超时（" + leaseTimeoutMs + "ms），池大小 " + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待解析子进程被中断", e);
+        }
+        try {
+            Worker worker;
+            while ((worker = idle.pollFirst()) != null && !worker.process.isAlive()) {
+                // 空闲期间退出的子进程
+                crashed.incrementAndGet();
+                worker.destroy();
+            }
+            return worker != null ? worker : start();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Worker worker, boolean healthy) {
+        if (!closed && healthy && worker.jobs < maxJobsPerWorker) {
+            idle.offerFirst(worker);
+            if (closed && idle.remove(worker)) {
+                // 归还过程中池被关闭
+                worker.destroy();
+            }
+            permits.release();
+            return;
+        }
+        worker.retire();
+        if (closed) {
+            permits.release();
+            return;
+        }
+        // 后台补充一个子进程，下一次借用不必等待 JVM 启动
+        try {
+            housekeeper.execute(() -> {
+                try {
+                    if (!closed) {
+                        idle.offerLast(start());
+                    }
+                } catch (IOException ignored) {
+                    // 启动失败时由下一次借用按需重建
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 池已关闭
+            permits.release();
+        }
+    }
+
+    /**
+     * 结束所有空闲子进程，借出中的子进程在归还时结束。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Worker worker;
+        while ((worker = idle.pollFirst()) != null) {
+            worker.retire();
+        }
+        housekeeper.shutdownNow();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    public long getKilledCount() {
+        return killed.get();
+    }
+
+    public long getCrashedCount() {
+        return crashed.get();
+    }
+
+    private final class Worker {
+        private final Process process;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private int jobs;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        private Response call(ExtractSource source, FileTypeDetector.FileType type, ExtractContext context)
+                throws IOException {
+            jobs++;
+            // 子进程内的解析期限先生效（返回部分结果），强制结束只兜底不响应期限的解析
+            long killAfterMs = context.getDeadlineMs() > 0
+                    ? Math.max(timeoutMs, context.getDeadlineMs() + DEADLINE_GRACE_MS)
+                    : timeoutMs;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> watchdog = housekeeper.schedule(() -> {
+                timedOut.set(true);
+                killed.incrementAndGet();
+                process.destroyForcibly();
+            }, killAfterMs, TimeUnit.MILLISECONDS);
+            try {
+                writeRequest(out, source, type, context);
+                return readResponse(in, context);
+            } catch (IOException e) {
+                watchdog.cancel(false);
+                process.destroyForcibly();
+                if (timedOut.get()) {
+                    throw new IOException("解析超时（" + killAfterMs + "ms），已结束解析子进程", e);
+                }
+                crashed.incrementAndGet();
+                throw new IOException("解析子进程异常退出" + exitCode(), e);
+            } finally {
+                watchdog.cancel(false);
+            }
+        }
+
+        private String exitCode() {
+            try {
+                return process.waitFor(1, TimeUnit.SECONDS) ? "（exit " + process.exitValue() + "）" : "";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "";
+            }
+        }
+
+        /**
+         * 关闭标准输入，子进程读到 EOF 后自行退出；短时间内没有退出的强制结束。
+         */
+        private void retire() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // 子进程已退出
+            }
+            if (process.isAlive()) {
+                housekeeper.schedule(this::destroy, 5, TimeUnit.SECONDS);
+            }
+        }
+
+        private void destroy() {
+            process.destroyForcibly();
+        }
+    }
+
+    private static final class Response {
+        private byte status;
+        private String type;
+        private String content;
+        private boolean truncated;
+        private boolean timedOut;
+        private List<ExtractMetrics.Event> events;
+    }
+
+    // ---------------------------------------------------------------- 管道协议
+
+    private static void writeRequest(DataOutputStream out, ExtractSource source, FileTypeDetector.FileType type,
+                                     ExtractContext context) throws IOException {
+        ExtractBudget budget = context.getBudget();
+        out.writeByte(OP_EXTRACT);
+        out.writeBoolean(source.isFile());
+        if (source.isFile()) {
+            out.writeUTF(source.file().getAbsolutePath());
+        } else {
+            out.writeInt(source.bytes().length);
+            out.write(source.bytes());
+        }
+        out.writeInt(budget.getMaxPages());
+        out.writeInt(budget.getMaxChars());
+        out.writeInt(budget.getMaxRows());
+        out.writeLong(budget.getMaxTimeMs());
+        out.writeLong(context.getDeadlineMs());
+        out.writeUTF(type == null ? "" : type.name());
+        out.flush();
+    }
+
+    private static Response readResponse(DataInputStream in, ExtractContext context) throws IOException {
+        byte frame;
+        while ((frame = in.readByte()) == FRAME_PROGRESS) {
+            readProgress(in, context);
+        }
+        Response response = new Response();
+        response.status = frame;
+        response.truncated = in.readBoolean();
+        response.timedOut = in.readBoolean();
+        if (response.status == STATUS_OK) {
+            response.type = in.readUTF();
+        }
+        response.content = readString(in);
+        readProgress(in, context);
+        int count = in.readInt();
+        response.events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            response.events.add(new ExtractMetrics.Event(in.readByte(), in.readUTF(), in.readUTF(),
+                    in.readLong(), in.readLong(), in.readLong()));
+        }
+        return response;
+    }
+
+    private static void writeProgress(DataOutputStream out, ExtractContext context) throws IOException {
+        out.writeInt(context.getTotalPages());
+        out.writeInt(context.getPagesDone());
+        out.writeLong(context.getBytesProcessed());
+    }
+
+    private static void readProgress(DataInputStream in, ExtractContext context) throws IOException {
+        context.relayProgress(in.readInt(), in.readInt(), in.readLong());
+    }
+
+    private static void writeEvents(DataOutputStream out, List<ExtractMetrics.Event> events) throws IOException {
+        out.writeInt(events.size());
+        for (ExtractMetrics.Event event : events) {
+            out.writeByte(event.kind);
+            out.writeUTF(event.type);
+            out.writeUTF(event.label);
+            out.writeLong(event.v1);
+            out.writeLong(event.v2);
+            out.writeLong(event.v3);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 子进程主循环：逐个读取请求并在当前进程内提取，标准输入关闭时返回。
+     * 协议独占 out，调用前须把 System.out 重定向到标准错误，避免日志混入。
+     *
+     * @param input  请求流（子进程标准输入）
+     * @param output 响应流（子进程标准输出）
+     */
+    public static void serve(InputStream input, OutputStream output) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "extract-worker-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (op != OP_EXTRACT) {
+                    throw new IOException("未知请求: " + op);
+                }
+                ExtractSource source;
+                if (in.readBoolean()) {
+                    source = ExtractSource.of(new File(in.readUTF()));
+                } else {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    source = ExtractSource.of(bytes);
+                }
+                ExtractBudget budget = ExtractBudget.of(in.readInt(), in.readInt(), in.readInt(), in.readLong());
+                ExtractContext context = new ExtractContext(budget, in.readLong());
+                String typeName = in.readUTF();
+                FileTypeDetector.FileType type = typeName.isEmpty() ? null : FileTypeDetector.FileType.valueOf(typeName);
+
+                // 解析期间定期回传进度；done 在持有 out 的锁时置位，之后不会再有进度帧混入响应之后
+                AtomicBoolean done = new AtomicBoolean();
+                ScheduledFuture<?> progress = reporter.scheduleWithFixedDelay(
+                        () -> sendProgress(out, context, done),
+                        PROGRESS_INTERVAL_MS, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+                TypeAndContent result = null;
+                String error = null;
+                try {
+                    result = GetTypeAndContent.getFileTypeAndContent(source, type, context);
+                } catch (Exception | StackOverflowError e) {
+                    error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                    if (error.length() > MAX_ERROR_CHARS) {
+                        error = error.substring(0, MAX_ERROR_CHARS);
+                    }
+                } finally {
+                    progress.cancel(false);
+                }
+
+                synchronized (out) {
+                    done.set(true);
+                    if (error != null) {
+                        out.writeByte(STATUS_ERROR);
+                        out.writeBoolean(false);
+                        out.writeBoolean(context.isTimedOut());
+                        writeString(out, error);
+                    } else if (result == null) {
+                        out.writeByte(STATUS_EMPTY);
+                        out.writeBoolean(context.isTruncated());
+                        out.writeBoolean(context.isTimedOut());
+                        writeString(out, null);
+                    } else {
+                        out.writeByte(STATUS_OK);
+                        out.writeBoolean(context.isTruncated());
+                        out.writeBoolean(context.isTimedOut());
+                        out.writeUTF(result.getType());
+                        writeString(out, result.getContent());
+                    }
+                    writeProgress(out, context);
+                    writeEvents(out, ExtractMetrics.drainEvents());
+                    out.flush();
+                }
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+    }
+
+    private static void sendProgress(DataOutputStream out, ExtractContext context, AtomicBoolean done) {
+        synchronized (out) {
+            if (done.get()) {
+                return;
+            }
+            try {
+                out.writeByte(FRAME_PROGRESS);
+                writeProgress(out, context);
+                out.flush();
+            } catch (IOException ignored) {
+                // 父进程已断开，主循环写响应时同样失败并退出
+            }
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package wiki.xyh.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: UNKNOWN 类型的回退路由。先用廉价的结构特征给各候选格式打分
+ *               （文件头附近的 OLE2 签名及目录流名、ZIP 条目名、首 1KB 内的 %PDF、RTF 控制字、HTML 标签、文本特征），
+ *               只按分数从高到低尝试有可能的解析器，第一个得到非乱码结果的候选即采信并停止；
+ *               完全没有特征的二进制文件一个解析器都不会跑。
+ *               通过 setParallelExecutor 设置线程池后，多个候选并行解析，采信后取消其余候选。
+ *               每个候选使用各自派生的 ExtractContext（预算、期限共享），只有被采信候选的进度与截断 / 超时标记合并回调用方，
+ *               未被采信的候选不会改写结果的 truncated 或异步任务的进度。
+ */
+public final class FallbackRouter {
+
+    /**
+     * 结构特征扫描窗口
+     */
+    private static final int EVIDENCE_WINDOW = 1024;
+
+    private static final byte[] OLE2_MAGIC = {
+            (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] ZIP_LOCAL = {0x50, 0x4B, 0x03, 0x04};
+    private static final byte[] PDF_MAGIC = ascii("%PDF");
+    private static final byte[] RTF_MAGIC = ascii("{\\rtf");
+    private static final byte[][] RTF_CONTROL_WORDS = {
+            ascii("\\par"), ascii("\\pard"), ascii("\\ansi"), ascii("\\fonttbl"), ascii("\\f0"), ascii("\\fs")};
+    private static final byte[][] HTML_TAGS = {
+            ascii("<!doctype"), ascii("<html"), ascii("<head"), ascii("<body"), ascii("<meta"),
+            ascii("<div"), ascii("<p>"), ascii("<p "), ascii("<table"), ascii("<span"), ascii("<br")};
+    private static final byte[][] ZIP_OFD_NAMES = {ascii("OFD.xml"), ascii("Doc_0/")};
+    private static final byte[] ZIP_WORD = ascii("word/");
+    private static final byte[] ZIP_XL = ascii("xl/");
+    private static final byte[] ZIP_PPT = ascii("ppt/");
+
+    /**
+     * 达到该分数的候选视为结构上确定，解析结果非乱码即可直接采信
+     */
+    static final int STRONG = 90;
+
+    private static volatile ExecutorService parallelExecutor;
+
+    private FallbackRouter() {
+    }
+
+    /**
+     * 设置候选并行解析使用的线程池，传 null 恢复串行。
+     */
+    public static void setParallelExecutor(ExecutorService executor) {
+        parallelExecutor = executor;
+    }
+
+    /**
+     * 路由结果。
+     */
+    public static final class Result {
+        private final FileTypeDetector.FileType type;
+        private final String content;
+        private final int attempts;
+        private final long messNanos;
+
+        private Result(FileTypeDetector.FileType type, String content, int attempts, long messNanos) {
+            this.type = type;
+            this.content = content;
+            this.attempts = attempts;
+            this.messNanos = messNanos;
+        }
+
+        /**
+         * 采信的类型，全部失败时为 UNKNOWN
+         */
+        public FileTypeDetector.FileType getType() {
+            return type;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * 实际运行的解析器个数
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * 乱码判定累计耗时（纳秒）
+         */
+        public long getMessNanos() {
+            return messNanos;
+        }
+    }
+
+    /**
+     * 候选格式及其得分。
+     */
+    static final class Candidate implements Comparable<Candidate> {
+        final FileTypeDetector.FileType type;
+        final int score;
+
+        Candidate(FileTypeDetector.FileType type, int score) {
+            this.type = type;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            return Integer.compare(o.score, score);
+        }
+
+        @Override
+        public String toString() {
+            return type + ":" + score;
+        }
+    }
+
+    /**
+     * 对 UNKNOWN 文件按特征分数依次尝试解析。
+     *
+     * @param source  提取源
+     * @param encode  已探测的文本编码
+     * @param context 提取上下文
+     * @return 路由结果
+     */
+    public static Result route(ExtractSource source, String encode, ExtractContext context) {
+        List<Candidate> candidates = score(source.buffer(), encode);
+        if (candidates.isEmpty()) {
+            return new Result(FileTypeDetector.FileType.UNKNOWN, null, 0, 0L);
+        }
+        ExecutorService executor = parallelExecutor;
+        if (executor != null && candidates.size() > 1 && !executor.isShutdown()) {
+            try {
+                return routeParallel(source, encode, context, candidates, executor);
+            } catch (RejectedExecutionException e) {
+                // 线程池已关闭，退回串行
+            }
+        }
+        return routeSerial(source, encode, context, candidates);
+    }
+
+    private static Result routeSerial(ExtractSource source, String encode, ExtractContext context,
+                                      List<Candidate> candidates) {
+        int attempts = 0;
+        long messNanos = 0L;
+        boolean timedOut = false;
+        for (Candidate candidate : candidates) {
+            attempts++;
+            ExtractContext own = context.fork();
+            String content = parse(candidate.type, source, encode, own);
+            long messStart = System.nanoTime();
+            boolean mess = WsTextUtils.isMess(content);
+            messNanos += System.nanoTime() - messStart;
+            if (!mess) {
+                context.adopt(own);
+                return new Result(candidate.type, content, attempts, messNanos);
+            }
+            timedOut |= own.isTimedOut();
+        }
+        if (timedOut) {
+            context.markTimedOut();
+        }
+        return new Result(FileTypeDetector.FileType.UNKNOWN, null, attempts, messNanos);
+    }
+
+    /**
+     * 所有候选同时提交，按分数顺序采信：某个候选完成且非乱码、并且分数更高的候选都已判定为乱码时即采信，
+     * 结果与串行路由一致，随后取消其余仍在运行的候选。
+     */
+    private static Result routeParallel(ExtractSource source, String encode, ExtractContext context,
+                                        List<Candidate> candidates, ExecutorService executor) {
+        int n = candidates.size();
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Integer>> futures = new ArrayList<>(n);
+        Map<Future<Integer>, Integer> indexes = new IdentityHashMap<>(n * 2);
+        ExtractContext[] contexts = new ExtractContext[n];
+        AtomicInteger started = new AtomicInteger();
+        String[] contents = new String[n];
+        // 0 未完成，1 非乱码，-1 乱码
+        int[] verdicts = new int[n];
+        long[] messNanos = new long[n];
+        int adopted = -1;
+
+        try {
+            for (int i = 0; i < n; i++) {
+                final int index = i;
+                final FileTypeDetector.FileType type = candidates.get(i).type;
+                contexts[i] = context.fork();
+                Future<Integer> future = completion.submit(() -> {
+                    if (contexts[index].isCancelled()) {
+                        // 排队期间已有候选被采信
+                        return -1;
+                    }
+                    started.incrementAndGet();
+                    String content = parse(type, source, encode, contexts[index]);
+                    long messStart = System.nanoTime();
+                    boolean mess = WsTextUtils.isMess(content);
+                    messNanos[index] = System.nanoTime() - messStart;
+                    contents[index] = content;
+                    return mess ? -1 : 1;
+                });
+                futures.add(future);
+                indexes.put(future, index);
+            }
+
+            int next = 0;
+            for (int done = 0; done < n; done++) {
+                Future<Integer> finished = completion.take();
+                int index = indexes.get(finished);
+                try {
+                    verdicts[index] = finished.get();
+                } catch (ExecutionException e) {
+                    verdicts[index] = -1;
+                }
+                // 按分数顺序推进：前面的候选都判定为乱码后，才轮到后面的候选
+                while (next < n && verdicts[next] == -1) {
+                    next++;
+                }
+                if (next < n && verdicts[next] == 1) {
+                    adopted = next;
+                    context.adopt(contexts[next]);
+                    return new Result(candidates.get(next).type, contents[next], started.get(), sum(messNanos));
+                }
+            }
+            for (ExtractContext own : contexts) {
+                if (own.isTimedOut()) {
+                    context.markTimedOut();
+                }
+            }
+            return new Result(FileTypeDetector.FileType.UNKNOWN, null, started.get(), sum(messNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(FileTypeDetector.FileType.UNKNOWN, null, started.get(), sum(messNanos));
+        } finally {
+            // 解析器大多不响应中断，先通过上下文让未采信的候选在下一个检查点停止，再取消 Future
+            for (int i = 0; i < n; i++) {
+                if (i != adopted && contexts[i] != null) {
+                    contexts[i].cancel();
+                }
+            }
+            for (Future<Integer> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static long sum(long[] values) {
+        long total = 0L;
+        for (long v : values) {
+            total += v;
+        }
+        return total;
+    }
+
+    private static String parse(FileTypeDetector.FileType type, ExtractSource source, String encode,
+                                ExtractContext context) {
+        switch (type) {
+            case TXT:
+                return GetTypeAndContent.readTXT(source, encode, context);
+            case RTF:
+                return GetTypeAndContent.readRTF(source, encode);
+            case DOC:
+                return GetTypeAndContent.tryReadWordDocOrExcel(source, context);
+            case XLS:
+                return GetTypeAndContent.readExcelXls(source, context);
+            case PPT:
+                return GetTypeAndContent.readPPT(source, context);
+            case MSG:
+                return GetTypeAndContent.readMSG(source);
+            case DOCX:
+                return GetTypeAndContent.tryReadWordDocxOrExcel(source, context);
+            case XLSX:
+                return GetTypeAndContent.readExcelXlsx(source, context);
+            case PPTX:
+                return GetTypeAndContent.readPPTX(source, context);
+            case EPUB:
+                return GetTypeAndContent.readEPUB(source, context);
+            case HTML:
+                return GetTypeAndContent.extractHtmlText(source, encode, context);
+            case PDF:
+                return GetTypeAndContent.readPDF(source, context);
+            case OFD:
+                return GetTypeAndContent.extractTextFromOFD(source, context);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 根据结构特征给候选格式打分，返回按分数从高到低排序、分数大于 0 的候选。
+     *
+     * @param buf    文件内容，不会改变 position
+     * @param encode 已探测的文本编码
+     * @return 候选列表
+     */
+    static List<Candidate> score(ByteBuffer buf, String encode) {
+        int base = buf.position();
+        int end = Math.min(buf.limit(), base + EVIDENCE_WINDOW);
+        int[] scores = new int[FileTypeDetector.FileType.values().length];
+
+        int ole2 = indexOf(buf, base, end, OLE2_MAGIC);
+        if (ole2 >= 0) {
+            // 按 OLE2 目录的流名区分格式；目录无法识别时仍按 DOC 打分，解析时依次尝试 Word / Excel
+            ByteBuffer container = buf.duplicate();
+            container.position(ole2);
+            FileTypeDetector.FileType sniffed = Ole2Sniffer.sniff(container);
+            FileTypeDetector.FileType type = sniffed == FileTypeDetector.FileType.UNKNOWN
+                    ? FileTypeDetector.FileType.DOC : sniffed;
+            scores[type.ordinal()] = STRONG;
+        }
+
+        if (indexOf(buf, base, end, PDF_MAGIC) >= 0) {
+            scores[FileTypeDetector.FileType.PDF.ordinal()] = STRONG;
+        }
+
+        int zip = indexOf(buf, base, end, ZIP_LOCAL);
+        if (zip >= 0) {
+            scoreZip(buf, base, end, zip, scores);
+        }
+
+        if (indexOf(buf, base, end, RTF_MAGIC) >= 0) {
+            scores[FileTypeDetector.FileType.RTF.ordinal()] = STRONG;
+        } else {
+            int words = countAny(buf, base, end, RTF_CONTROL_WORDS, false);
+            if (words >= 3) {
+                scores[FileTypeDetector.FileType.RTF.ordinal()] = 50;
+            }
+        }
+
+        int tags = countAny(buf, base, end, HTML_TAGS, true);
+        if (tags > 0) {
+            scores[FileTypeDetector.FileType.HTML.ordinal()] = Math.min(80, 40 + tags * 10);
+        }
+
+        int textScore = textScore(buf, base, end, encode);
+        if (textScore > 0) {
+            scores[FileTypeDetector.FileType.TXT.ordinal()] = textScore;
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (FileTypeDetector.FileType type : FileTypeDetector.FileType.values()) {
+            if (scores[type.ordinal()] > 0) {
+                candidates.add(new Candidate(type, scores[type.ordinal()]));
+            }
+        }
+        // 稳定排序：同分时按枚举顺序
+        candidates.sort(null);
+        return candidates;
+    }
+
+    /**
+     * ZIP 本地文件头出现在窗口内：先从该偏移读中央目录，再看窗口内可见的条目名。
+     */
+    private static void scoreZip(ByteBuffer buf, int base, int end, int zip, int[] scores) {
+        ByteBuffer slice = buf.duplicate();
+        slice.position(zip);
+        FileTypeDetector.FileType sniffed = ZipSniffer.sniff(slice);
+        if (sniffed != FileTypeDetector.FileType.UNKNOWN) {
+            scores[sniffed.ordinal()] = STRONG;
+            return;
+        }
+        boolean named = false;
+        if (countAny(buf, base, end, ZIP_OFD_NAMES, false) > 0) {
+            scores[FileTypeDetector.FileType.OFD.ordinal()] = 60;
+            named = true;
+        }
+        if (indexOf(buf, base, end, ZIP_WORD) >= 0) {
+            scores[FileTypeDetector.FileType.DOCX.ordinal()] = 60;
+            named = true;
+        }
+        if (indexOf(buf, base, end, ZIP_XL) >= 0) {
+            scores[FileTypeDetector.FileType.XLSX.ordinal()] = 60;
+            named = true;
+        }
+        if (indexOf(buf, base, end, ZIP_PPT) >= 0) {
+            scores[FileTypeDetector.FileType.PPTX.ordinal()] = 60;
+            named = true;
+        }
+        if (!named) {
+            // 只知道是 ZIP：沿用原先的尝试范围
+            scores[FileTypeDetector.FileType.DOCX.ordinal()] = 30;
+            scores[FileTypeDetector.FileType.OFD.ordinal()] = 30;
+        }
+    }
+
+    /**
+     * 文本特征：窗口内控制字符占比越低分数越高。纯文本是最泛化的候选，分数低于任何结构特征，
+     * 只有在其他候选都不成立时才采信。UTF-16 文本本身含大量 0 字节，不计入控制字符。
+     */
+    private static int textScore(ByteBuffer buf, int base, int end, String encode) {
+        int len = end - base;
+        if (len == 0) {
+            return 0;
+        }
+        boolean utf16 = encode != null && encode.startsWith("UTF-16");
+        int control = 0;
+        for (int i = base; i < end; i++) {
+            int b = buf.get(i) & 0xFF;
+            if (b == 0 && utf16) {
+                continue;
+            }
+            if (b < 0x09 || (b > 0x0D && b < 0x20 && b != 0x1B) || b == 0x7F) {
+                control++;
+            }
+        }
+        if (control * 100 <= len) {
+            return 35;
+        }
+        if (control * 20 <= len) {
+            return 20;
+        }
+        return 0;
+    }
+
+    private static int countAny(ByteBuffer buf, int from, int to, byte[][] needles, boolean ignoreCase) {
+        int count = 0;
+        for (byte[] needle : needles) {
+            if (ignoreCase ? indexOfIgnoreCase(buf, from, to, needle) >= 0 : indexOf(buf, from, to, needle) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int indexOf(ByteBuffer buf, int from, int to, byte[] needle) {
+        int last = to - needle.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int k = 0; k < needle.length; k++) {
+                if (buf.get(i + k) != needle[k]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * ASCII 大小写不敏感查找，needle 需为小写。
+     */
+    private static int indexOfIgnoreCase(ByteBuffer buf, int from, int to, byte[] needle) {
+        int last = to - needle.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int k = 0; k < needle.length; k++) {
+                int b = buf.get(i + k);
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != needle[k]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,14 +1,10 @@
 package wiki.xyh.utils;
 
-import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * @Author: XYH
@@ -17,13 +13,19 @@ import java.util.zip.ZipInputStream;
  */
 public class FileTypeDetector {
 
-    private static final byte[] DOC_MAGIC_NUMBER = {(byte) 0xD0, (byte) 0xCF, (byte) 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, (byte) 0x1A, (byte) 0xE1};
-    private static final byte[] DOCX_MAGIC_NUMBER = {(byte) 0x50, (byte) 0x4B, (byte) 0x03, (byte) 0x04};
-    private static final byte[] HTML_MAGIC_NUMBER = {(byte) 0x3C, (byte) 0x68, (byte) 0x74, (byte) 0x6D};  // <html
-    private static final byte[] PDF_MAGIC_NUMBER = {(byte) 0x25, (byte) 0x50, (byte) 0x44, (byte) 0x46};
-    private static final byte[] XLS_MAGIC_NUMBER = DOC_MAGIC_NUMBER;
-    private static final byte[] XLSX_MAGIC_NUMBER = DOCX_MAGIC_NUMBER;
-    private static final byte[] RTF_MAGIC_NUMBER = {(byte) 0x7B, (byte) 0x5C, (byte) 0x72, (byte) 0x74, (byte) 0x66};
+    /**
+     * HTML 探测窗口：只看文件头部的字节
+     */
+    private static final int HTML_PROBE_WINDOW = 100;
+
+    /**
+     * 纯文本探测窗口：UTF-8 合法性只校验前 8KB，控制字符只检查前 512 字节
+     */
+    private static final int TEXT_PROBE_WINDOW = 8 * 1024;
+    private static final int CONTROL_PROBE_WINDOW = 512;
+
+    private static final byte[] HTML_TAG = "<html".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HTML_DOCTYPE = "<!doctype html".getBytes(StandardCharsets.US_ASCII);
 
     /**
      * 检测文件类型（去除 Tika）
@@ -33,21 +35,34 @@ public class FileTypeDetector {
         if (bytes == null || bytes.length < 8) {
             return FileType.UNKNOWN;
         }
+        return detectFileType(ByteBuffer.wrap(bytes));
+    }
 
-        try {
-            if (isHTMLFile(bytes)) return FileType.HTML;
-            if (compareMagicNumber(bytes, RTF_MAGIC_NUMBER)) return FileType.RTF;
-            if (isTextFile(bytes, StandardCharsets.UTF_8)) return FileType.TXT;
-            if (isOFDFile(bytes)) return FileType.OFD;
-
-            byte[] headerBytes = Arrays.copyOf(bytes, 8);
-            if (compareMagicNumber(headerBytes, DOC_MAGIC_NUMBER)) return FileType.DOC;
-            if (compareMagicNumber(headerBytes, DOCX_MAGIC_NUMBER)) return detectZipBasedType(bytes);
-            if (compareMagicNumber(headerBytes, PDF_MAGIC_NUMBER)) return FileType.PDF;
-            if (compareMagicNumber(headerBytes, XLS_MAGIC_NUMBER)) return FileType.XLS;
-            if (compareMagicNumber(headerBytes, XLSX_MAGIC_NUMBER)) return detectZipBasedType(bytes);
-            if (JudgeImage.isImage(bytes)) return FileType.JPEG;
+    /**
+     * 检测文件类型，单次遍历：
+     * 1. 用魔数字节树匹配文件头，命中强魔数（PDF / OLE2 / ZIP / RTF / 二进制图片）直接返回，
+     *    ZIP 再读中央目录、OLE2 再读目录流名区分具体格式；
+     * 2. 文件头不明确时才做文本探测（HTML、UTF-8 纯文本），且只看前几 KB；
+     * 3. 最后才采信可能与普通文本冲突的弱魔数（如 BMP 的 "BM"）。
+     * 所有探测都只读有限窗口，耗时与文件大小无关；不改变 buffer 的 position。
+     *
+     * @param buf 文件内容（堆内数组或内存映射文件）
+     */
+    public static FileType detectFileType(ByteBuffer buf) {
+        if (buf == null || buf.remaining() < 8) {
+            return FileType.UNKNOWN;
+        }
 
+        try {
+            MagicNumberTrie.Match magic = MagicNumberTrie.match(buf);
+            if (magic != null && magic.isStrong()) {
+                return resolve(magic, buf);
+            }
+            if (isHTMLHead(buf)) return FileType.HTML;
+            if (isTextHead(buf)) return FileType.TXT;
+            if (magic != null) {
+                return resolve(magic, buf);
+            }
         } catch (Exception e) {
             // 可以添加日志
         }
@@ -55,45 +70,69 @@ public class FileTypeDetector {
         return FileType.UNKNOWN;
     }
 
-    /** 判断是否为OFD文件（ZIP包中包含 OFD.xml） */
+    private static FileType resolve(MagicNumberTrie.Match magic, ByteBuffer buf) {
+        if (magic.isZip()) {
+            return ZipSniffer.sniff(buf);
+        }
+        if (magic.isOle2()) {
+            // 按根存储下的流名区分 DOC / XLS / PPT / MSG，无法识别时交给 UNKNOWN 回退
+            return Ole2Sniffer.sniff(buf);
+        }
+        return magic.getType();
+    }
+
+    /** 判断是否为OFD文件（ZIP包中包含 OFD.xml），只读中央目录，不解压 */
     public static boolean isOFDFile(byte[] bytes) {
-        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(bytes))) {
-            ZipEntry entry;
-            while ((entry = zipStream.getNextEntry()) != null) {
-                if ("OFD.xml".equals(entry.getName())) {
-                    return true;
-                }
+        return ZipSniffer.sniff(bytes) == FileType.OFD;
+    }
+
+    /** 判断是否为 HTML 文件 */
+    public static boolean isHTMLFile(byte[] bytes) {
+        return isHTMLHead(ByteBuffer.wrap(bytes));
+    }
+
+    /** 在文件头窗口内按 ASCII 忽略大小写查找 <html 或 <!doctype html，不构造字符串 */
+    private static boolean isHTMLHead(ByteBuffer buf) {
+        int start = buf.position();
+        int end = Math.min(buf.limit(), start + HTML_PROBE_WINDOW);
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == '<' && (regionMatchesIgnoreCase(buf, i, end, HTML_TAG)
+                    || regionMatchesIgnoreCase(buf, i, end, HTML_DOCTYPE))) {
+                return true;
             }
-        } catch (Exception ignored) {}
+        }
         return false;
     }
 
-    /** 比较头部魔数 */
-    private static boolean compareMagicNumber(byte[] bytes, byte[] magic) {
-        if (bytes.length < magic.length) return false;
-        for (int i = 0; i < magic.length; i++) {
-            if (bytes[i] != magic[i]) return false;
+    private static boolean regionMatchesIgnoreCase(ByteBuffer buf, int offset, int end, byte[] lowerAscii) {
+        if (offset + lowerAscii.length > end) {
+            return false;
+        }
+        for (int i = 0; i < lowerAscii.length; i++) {
+            int b = buf.get(offset + i);
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerAscii[i]) {
+                return false;
+            }
         }
         return true;
     }
 
-    /** 检测 Zip 包类型，是 docx 还是 xlsx */
-    private static FileType detectZipBasedType(byte[] bytes) {
-        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(bytes))) {
-            ZipEntry entry;
-            while ((entry = zipStream.getNextEntry()) != null) {
-                String name = entry.getName();
-                if (name.startsWith("word/")) return FileType.DOCX;
-                if (name.startsWith("xl/")) return FileType.XLSX;
+    /** 文本探测：前 8KB 为合法 UTF-8，且前 512 字节不含控制字符 */
+    private static boolean isTextHead(ByteBuffer buf) {
+        int start = buf.position();
+        int limit = buf.limit();
+        int controlEnd = Math.min(limit, start + CONTROL_PROBE_WINDOW);
+        for (int i = start; i < controlEnd; i++) {
+            byte b = buf.get(i);
+            if ((b >= 0 && b < 9) || (b > 13 && b < 32)) {
+                return false;
             }
-        } catch (Exception ignored) {}
-        return FileType.UNKNOWN;
-    }
-
-    /** 判断是否为 HTML 文件 */
-    public static boolean isHTMLFile(byte[] bytes) {
-        String head = new String(bytes, 0, Math.min(bytes.length, 100), StandardCharsets.UTF_8).toLowerCase();
-        return head.contains("<html") || head.contains("<!doctype html");
+        }
+        int end = Math.min(limit, start + TEXT_PROBE_WINDOW);
+        return CharsetDetector.isValidUtf8(buf, start, end, end < limit);
     }
 
     /**
@@ -122,6 +161,6 @@ public class FileTypeDetector {
 
     /** 文件类型枚举 */
     public enum FileType {
-        DOC, DOCX, HTML, PDF, XLS, XLSX, RTF, TXT, OFD, JPEG, XML, UNKNOWN
+        DOC, DOCX, HTML, PDF, XLS, XLSX, PPT, PPTX, MSG, EPUB, RTF, TXT, OFD, JPEG, XML, UNKNOWN
     }
 }
@@ -1,34 +1,39 @@
 package wiki.xyh.utils;
 
-import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
 import org.apache.commons.io.IOUtils;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.hslf.usermodel.HSLFSlideShow;
+import org.apache.poi.hsmf.MAPIMessage;
+import org.apache.poi.hsmf.exceptions.ChunkNotFoundException;
 import org.apache.poi.hwpf.HWPFDocument;
 import org.apache.poi.hwpf.extractor.WordExtractor;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.sl.extractor.SlideShowExtractor;
+import org.apache.poi.sl.usermodel.Shape;
+import org.apache.poi.sl.usermodel.Slide;
+import org.apache.poi.sl.usermodel.SlideShow;
+import org.apache.poi.sl.usermodel.TextParagraph;
+import org.apache.poi.sl.usermodel.TextRun;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.ofdrw.reader.ContentExtractor;
-import org.ofdrw.reader.OFDReader;
 
 import javax.swing.text.rtf.RTFEditorKit;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Arrays;
+import java.util.List;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
 import wiki.xyh.bean.TypeAndContent;
@@ -41,85 +46,167 @@ import wiki.xyh.bean.TypeAndContent;
 public class GetTypeAndContent {
 
     public static TypeAndContent getFileTypeAndContent(byte[] bytes) {
+        return getFileTypeAndContent(ExtractSource.of(bytes));
+    }
+
+    /**
+     * 大文件入口：直接从落盘文件解析，文件内容不会整体读入堆内存。
+     *
+     * @param file 待解析的文件
+     */
+    public static TypeAndContent getFileTypeAndContent(File file) {
+        return getFileTypeAndContent(ExtractSource.of(file));
+    }
+
+    public static TypeAndContent getFileTypeAndContent(ExtractSource source) {
+        return getFileTypeAndContent(source, new ExtractContext());
+    }
 
-        String encode = EncodeUtils.detectEncoding(bytes, true);
+    /**
+     * 带上下文的提取入口，解析器通过 context 汇报进度。
+     *
+     * @param source  提取源
+     * @param context 提取上下文
+     */
+    public static TypeAndContent getFileTypeAndContent(ExtractSource source, ExtractContext context) {
+        return getFileTypeAndContent(source, null, context);
+    }
 
+    /**
+     * 同上，调用方已识别文件类型（如准入控制）时直接传入，不再重复识别；类型识别耗时由调用方记录。
+     *
+     * @param source   提取源
+     * @param detected 已识别的文件类型，为 null 时在这里识别
+     * @param context  提取上下文
+     */
+    public static TypeAndContent getFileTypeAndContent(ExtractSource source, FileTypeDetector.FileType detected,
+                                                       ExtractContext context) {
+
+        context.start(source.size());
+        long startNanos = System.nanoTime();
+
+        String encode = CharsetDetector.detect(source.buffer(), true, CharsetDetector.DEFAULT_SAMPLE_SIZE).getCharset();
+        long charsetNanos = System.nanoTime() - startNanos;
+
+        long typeStart = System.nanoTime();
         FileTypeDetector.FileType fileType = FileTypeDetector.FileType.UNKNOWN;
-        try {
-            fileType = detectFileType(bytes);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        if (detected != null) {
+            fileType = detected;
+        } else {
+            try {
+                fileType = FileTypeDetector.detectFileType(source.buffer());
+            } catch (Exception e) {
+                ExtractMetrics.recordFailure(typeTag(fileType), e);
+                throw new RuntimeException(e);
+            }
         }
+        long typeNanos = System.nanoTime() - typeStart;
 
         String content = null;
+        long messNanos = 0L;
+        // 是否有对应的解析器；没有解析器的类型（图片等）返回空内容，不计入解析失败
+        boolean parsed = true;
 
         // 根据 fileType 判断解析方式
+        long parseStart = System.nanoTime();
         switch (fileType) {
             case TXT:
-                content = readTXT(bytes, encode);
+                content = readTXT(source, encode, context);
                 break;
             case RTF:
-                content = readRTF(bytes, encode);
+                content = readRTF(source, encode);
                 break;
             case DOC:
+                // OLE2 目录已经确定格式，直接调用对应解析器，不再先按 Word 解析失败后重开一次
+                content = readWordDoc(source);
+                break;
             case XLS:
-                content = tryReadWordDocOrExcel(bytes, encode);
+                content = readExcelXls(source, context);
+                break;
+            case PPT:
+                content = readPPT(source, context);
+                break;
+            case MSG:
+                content = readMSG(source);
                 break;
             case DOCX:
+                content = tryReadWordDocxOrExcel(source, context);
+                break;
             case XLSX:
-                content = tryReadWordDocxOrExcel(bytes);
+                // 中央目录已经确定是 xlsx，直接按 Excel 解析，省去一次失败的 docx 解析
+                content = readExcelXlsx(source, context);
+                break;
+            case PPTX:
+                content = readPPTX(source, context);
+                break;
+            case EPUB:
+                content = readEPUB(source, context);
                 break;
             case HTML:
-                content = extractHtmlJsoup(bytes, encode);
+                content = extractHtmlText(source, encode, context);
                 break;
             case PDF:
-                content = readPDF(bytes);
+                content = readPDF(source, context);
                 break;
             case OFD:
-                content = extractTextFromOFD(bytes);
+                content = extractTextFromOFD(source, context);
                 break;
-            default:
-                // 对于未知类型，暂不处理
-                //            default:
-//                // UNKNOWN 类型时，逐步尝试多种解析方式，直到成功
-                String[] tryOrder = {"TXT", "RTF", "DOC", "DOCX", "HTML", "PDF", "OFD"};
-                for (String type : tryOrder) {
-                    switch (type) {
-                        case "TXT":
-                            content = readTXT(bytes, encode);
-                            break;
-                        case "RTF":
-                            content = readRTF(bytes, encode);
-                            break;
-                        case "DOC":
-                            content = tryReadWordDocOrExcel(bytes, encode);
-                            break;
-                        case "DOCX":
-                            content = tryReadWordDocxOrExcel(bytes);
-                            break;
-                        case "HTML":
-                            content = extractHtmlJsoup(bytes, encode);
-                            break;
-                        case "PDF":
-                            content = readPDF(bytes);
-                            break;
-                        case "OFD":
-                            content = extractTextFromOFD(bytes);
-                            break;
-                    }
-                    if (!WsTextUtils.isMess(content)) {
-                        fileType = FileTypeDetector.FileType.valueOf(type);
-                        break;
-                    }
+            case UNKNOWN:
+                // UNKNOWN 类型：按结构特征打分，只尝试有可能的解析器，得到非乱码结果即停止
+                FallbackRouter.Result routed = FallbackRouter.route(source, encode, context);
+                content = routed.getContent();
+                if (content != null) {
+                    fileType = routed.getType();
+                }
+                messNanos = routed.getMessNanos();
+                ExtractMetrics.recordFallbackDepth(typeTag(fileType), routed.getAttempts());
+                if (fileType == FileTypeDetector.FileType.UNKNOWN) {
+                    ExtractMetrics.recordFailure(typeTag(fileType), ExtractMetrics.CAUSE_UNRECOGNIZED);
                 }
                 break;
+            default:
+                // JPEG / XML 等已识别但不提取文本的类型，保留检测到的类型，不走回退路由
+                parsed = false;
+                break;
         }
+        long parseNanos = System.nanoTime() - parseStart - messNanos;
 
         if (content != null && !content.isEmpty()) {
             content = formatContent(content);  // 格式化
         }
+        // 解析器在页、段落、行等边界停止，可能略超出字符预算，这里按预算精确截断
+        ExtractBudget budget = context.getBudget();
+        if (content != null && content.length() > budget.getMaxChars()) {
+            int end = budget.getMaxChars();
+            if (end > 0 && Character.isHighSurrogate(content.charAt(end - 1))) {
+                end--;
+            }
+            content = content.substring(0, end);
+            context.markTruncated();
+        }
+        context.finish();
+
+        String typeTag = typeTag(fileType);
+        ExtractMetrics.recordStage(ExtractMetrics.STAGE_CHARSET, typeTag, charsetNanos);
+        if (detected == null) {
+            ExtractMetrics.recordStage(ExtractMetrics.STAGE_TYPE, typeTag, typeNanos);
+        }
+        ExtractMetrics.recordStage(ExtractMetrics.STAGE_PARSE, typeTag, parseNanos);
+        if (messNanos > 0L) {
+            ExtractMetrics.recordStage(ExtractMetrics.STAGE_MESS, typeTag, messNanos);
+        }
+        ExtractMetrics.recordFile(typeTag, System.nanoTime() - startNanos, source.size(),
+                content == null ? 0L : content.length());
+        if (content == null && parsed && fileType != FileTypeDetector.FileType.UNKNOWN) {
+            // 各解析器内部吞掉异常并返回 null，这里统一按“无内容”计入失败
+            ExtractMetrics.recordFailure(typeTag, ExtractMetrics.CAUSE_EMPTY);
+        }
 
-        return new TypeAndContent(fileType.toString().toLowerCase(), content);
+        return new TypeAndContent(typeTag, content);
+    }
+
+    private static String typeTag(FileTypeDetector.FileType fileType) {
+        return fileType.toString().toLowerCase();
     }
 
     public static FileTypeDetector.FileType detectFileType(byte[] bytes) throws Exception {
@@ -155,31 +242,122 @@ public class GetTypeAndContent {
         return fileType;
     }
 
-    // 处理 Word 和 Excel 文件的混合读取逻辑
-    private static String tryReadWordDocOrExcel(byte[] bytes, String encode) {
-        String docContent = readWordDoc(bytes);
-        return docContent != null ? docContent : readExcelXls(bytes, encode);
+    // 处理 Word 和 Excel 文件的混合读取逻辑，仅用于 OLE2 目录无法识别的文件
+    static String tryReadWordDocOrExcel(ExtractSource source, ExtractContext context) {
+        String docContent = readWordDoc(source);
+        return docContent != null ? docContent : readExcelXls(source, context);
+    }
+
+    static String tryReadWordDocxOrExcel(ExtractSource source, ExtractContext context) {
+        String docxContent = readWordDocx(source, context);
+        return docxContent != null ? docxContent : readExcelXlsx(source, context);
+    }
+
+    /**
+     * 表格行数上限：SheetLimits 默认上限与提取预算取较小者。
+     */
+    private static SheetLimits sheetLimits(ExtractContext context) {
+        SheetLimits limits = SheetLimits.getDefault();
+        int maxRows = context.getBudget().getMaxRows();
+        return maxRows < limits.getMaxRows() ? SheetLimits.of(maxRows, limits.getMaxCells()) : limits;
+    }
+
+    /**
+     * 打开 OLE2 复合文档。文件源使用只读的内存映射文件系统，不把整个文件读入堆。
+     */
+    private static POIFSFileSystem openPoifs(ExtractSource source) throws IOException {
+        if (source.isFile()) {
+            return new POIFSFileSystem(source.file(), true);
+        }
+        return new POIFSFileSystem(new ByteArrayInputStream(source.bytes()));
     }
 
-    private static String tryReadWordDocxOrExcel(byte[] bytes) {
-        String docxContent = readWordDocx(bytes);
-        return docxContent != null ? docxContent : readExcelXlsx(bytes);
+    /**
+     * 打开 OOXML 包。文件源按 ZipFile 随机访问各部件；用完后调用 revert() 释放，不写回。
+     */
+    private static OPCPackage openPackage(ExtractSource source) throws Exception {
+        if (source.isFile()) {
+            return OPCPackage.open(source.file(), PackageAccess.READ);
+        }
+        return OPCPackage.open(new ByteArrayInputStream(source.bytes()));
     }
 
     public static String readWordDocx(byte[] bytes) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             XWPFDocument document = new XWPFDocument(inputStream);
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+        return readWordDocx(ExtractSource.of(bytes));
+    }
 
-            return extractor.getText().trim();
+    /**
+     * 流式读取 word/document.xml 的正文；页眉、页脚、脚注、尾注是否追加由 DocxStreamExtractor 的默认配置决定。
+     */
+    public static String readWordDocx(ExtractSource source) {
+        return readWordDocx(source, new ExtractContext());
+    }
+
+    public static String readWordDocx(ExtractSource source, ExtractContext context) {
+        OPCPackage pkg = null;
+        try {
+            pkg = openPackage(source);
+            return DocxStreamExtractor.extract(pkg, DocxStreamExtractor.isIncludeAuxiliaryParts(), context);
         } catch (Exception e) {
             return null;  // 返回 null 以进行 Excel 文件处理
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    public static String readPPTX(byte[] bytes) {
+        return readPPTX(ExtractSource.of(bytes));
+    }
+
+    public static String readPPTX(ExtractSource source) {
+        return readPPTX(source, new ExtractContext());
+    }
+
+    public static String readPPTX(ExtractSource source, ExtractContext context) {
+        OPCPackage pkg = null;
+        try {
+            pkg = openPackage(source);
+            return slidesText(new XMLSlideShow(pkg), context);
+        } catch (Exception e) {
+            return null;
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    public static String readEPUB(byte[] bytes) {
+        return readEPUB(ExtractSource.of(bytes));
+    }
+
+    /**
+     * 读取 EPUB：按 OPF 中 spine 的阅读顺序拼接各章节 XHTML 的可见文本。
+     */
+    public static String readEPUB(ExtractSource source) {
+        return readEPUB(source, new ExtractContext());
+    }
+
+    /**
+     * 同上，逐章读取并检查提取预算。
+     */
+    public static String readEPUB(ExtractSource source, ExtractContext context) {
+        try {
+            return EpubTextExtractor.extract(source, context);
+        } catch (Exception e) {
+            return null;
         }
     }
 
     public static String readWordDoc(byte[] bytes) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             HWPFDocument document = new HWPFDocument(inputStream);
+        return readWordDoc(ExtractSource.of(bytes));
+    }
+
+    public static String readWordDoc(ExtractSource source) {
+        try (POIFSFileSystem fs = openPoifs(source);
+             HWPFDocument document = new HWPFDocument(fs);
              WordExtractor extractor = new WordExtractor(document)) {
 
             return extractor.getText().trim();
@@ -188,9 +366,103 @@ public class GetTypeAndContent {
         }
     }
 
+    public static String readPPT(byte[] bytes) {
+        return readPPT(ExtractSource.of(bytes));
+    }
+
+    public static String readPPT(ExtractSource source) {
+        return readPPT(source, new ExtractContext());
+    }
+
+    public static String readPPT(ExtractSource source, ExtractContext context) {
+        try (POIFSFileSystem fs = openPoifs(source);
+             HSLFSlideShow slideShow = new HSLFSlideShow(fs)) {
+            return slidesText(slideShow, context);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 逐张幻灯片提取文本，幻灯片数与字符数 / 耗时受提取预算约束。
+     */
+    private static <S extends Shape<S, P>, P extends TextParagraph<S, P, ? extends TextRun>> String slidesText(
+            SlideShow<S, P> slideShow, ExtractContext context) {
+        List<? extends Slide<S, P>> slides = slideShow.getSlides();
+        int count = context.pageLimit(slides.size());
+        context.setTotalPages(count);
+        SlideShowExtractor<S, P> extractor = new SlideShowExtractor<>(slideShow);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(extractor.getText(slides.get(i)));
+            context.pageDone();
+            if (i < count - 1 && context.shouldStop(sb.length())) {
+                break;
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    public static String readMSG(byte[] bytes) {
+        return readMSG(ExtractSource.of(bytes));
+    }
+
+    /**
+     * 读取 Outlook 邮件：主题、发件人、收件人、抄送在前，正文在后；缺失的字段跳过。
+     */
+    public static String readMSG(ExtractSource source) {
+        try (POIFSFileSystem fs = openPoifs(source);
+             MAPIMessage message = new MAPIMessage(fs)) {
+            StringJoiner joiner = new StringJoiner("\n");
+            addMsgField(joiner, "Subject: ", message::getSubject);
+            addMsgField(joiner, "From: ", message::getDisplayFrom);
+            addMsgField(joiner, "To: ", message::getDisplayTo);
+            addMsgField(joiner, "CC: ", message::getDisplayCC);
+            addMsgField(joiner, "", message::getTextBody);
+            return joiner.toString().trim();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private interface MsgField {
+        String get() throws ChunkNotFoundException;
+    }
+
+    private static void addMsgField(StringJoiner joiner, String label, MsgField field) {
+        try {
+            String value = field.get();
+            if (value != null && !value.trim().isEmpty()) {
+                joiner.add(label + value.trim());
+            }
+        } catch (ChunkNotFoundException e) {
+            // 该字段不存在
+        }
+    }
+
     public static String readTXT(byte[] bytes, String charset) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), charset))) {
-            return IOUtils.toString(reader).trim();
+        return readTXT(ExtractSource.of(bytes), charset);
+    }
+
+    public static String readTXT(ExtractSource source, String charset) {
+        return readTXT(source, charset, new ExtractContext());
+    }
+
+    /**
+     * 读取纯文本；预算限制字符数时只解码前 maxChars 个字符。
+     */
+    public static String readTXT(ExtractSource source, String charset, ExtractContext context) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.openStream(), charset))) {
+            if (!context.getBudget().hasCharLimit()) {
+                return IOUtils.toString(reader).trim();
+            }
+            int maxChars = context.getBudget().getMaxChars();
+            char[] chars = new char[(int) Math.min(maxChars, Math.max(source.size(), 16))];
+            int n = IOUtils.read(reader, chars);
+            if (n == chars.length && reader.read() != -1) {
+                context.markTruncated();
+            }
+            return new String(chars, 0, n).trim();
         } catch (IOException e) {
             // 捕获异常并返回 null
             return null;
@@ -201,9 +473,20 @@ public class GetTypeAndContent {
         if (bytes == null || bytes.length == 0) {
             return null;
         }
+        return readPDF(ExtractSource.of(bytes));
+    }
+
+    public static String readPDF(ExtractSource source) {
+        return readPDF(source, new ExtractContext());
+    }
+
+    public static String readPDF(ExtractSource source, ExtractContext context) {
+        if (source.size() == 0) {
+            return null;
+        }
 
         try {
-            return PDFWatermarkRemover.removeWatermarkBasedOnAngle(bytes);
+            return PDFWatermarkRemover.removeWatermarkBasedOnAngle(source, context);
         } catch (Exception ignored) {
         }
         return null;
@@ -211,7 +494,7 @@ public class GetTypeAndContent {
 
     // 使用PDFBox解析PDF文本
     private static String readPDFWithPDFBox(byte[] bytes) {
-        try (PDDocument document = Loader.loadPDF(bytes)) {
+        try (PDDocument document = PdfLoader.load(ExtractSource.of(bytes))) {
             PDFTextStripper stripper = new PDFTextStripper();
             stripper.setStartPage(1);
             stripper.setEndPage(50);  // 限制到前50页
@@ -251,7 +534,11 @@ public class GetTypeAndContent {
     }
 
     public static String readRTF(byte[] bytes, String charset) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        return readRTF(ExtractSource.of(bytes), charset);
+    }
+
+    public static String readRTF(ExtractSource source, String charset) {
+        try (InputStream inputStream = source.openStream();
              BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, charset))) {
 
             RTFEditorKit rtfParser = new RTFEditorKit();
@@ -264,10 +551,12 @@ public class GetTypeAndContent {
         }
     }
 
+    /**
+     * 用 HtmlUnit 渲染后取规范化文本，WebClient 从池中借用。
+     */
     public static String readHTML(byte[] bytes, String charset) {
         try {
-            HtmlPage page = PageParser.htmlParser(bytes, charset);
-            return page.asNormalizedText().trim();
+            return PageParser.renderText(bytes, charset).trim();
         } catch (Exception e) {
             // 捕获异常并返回 null
             return null;
@@ -275,20 +564,55 @@ public class GetTypeAndContent {
     }
 
 
+    public static String extractHtmlText(byte[] htmlBytes, String charset) {
+        return extractHtmlText(ExtractSource.of(htmlBytes), charset);
+    }
+
+    /**
+     * 仅提取页面上可见的文本内容（流式扫描，跳过脚本、样式、隐藏元素等），不限制文件大小。
+     * 文件中有 BOM 或 meta charset 时以文件声明的编码为准。
+     */
+    public static String extractHtmlText(ExtractSource source, String charset) {
+        return extractHtmlText(source, charset, new ExtractContext());
+    }
+
+    public static String extractHtmlText(ExtractSource source, String charset, ExtractContext context) {
+        try {
+            return HtmlTextExtractor.extract(source, charset, context);
+        } catch (Exception e) {
+            // 捕获异常并返回 null
+            return null;
+        }
+    }
+
     /**
      * 仅提取页面上可见的文本内容（自动过滤脚本、样式、隐藏元素等）
+     *
+     * @deprecated 整篇解码后做正则清理并构建完整 DOM，受 50MB 限制；使用 {@link #extractHtmlText(ExtractSource, String)}
      */
+    @Deprecated
     public static String extractHtmlJsoup(byte[] htmlBytes, String charset) {
+        return extractHtmlJsoup(ExtractSource.of(htmlBytes), charset);
+    }
+
+    /**
+     * @deprecated 使用 {@link #extractHtmlText(ExtractSource, String)}
+     */
+    @Deprecated
+    public static String extractHtmlJsoup(ExtractSource source, String charset) {
         StringJoiner joiner = new StringJoiner("\n");
 
         try {
             // 1️⃣ 文件大小限制，防止大文件拖垮内存
-            if (htmlBytes.length > 50 * 1024 * 1024) {
+            if (source.size() > 50 * 1024 * 1024) {
                 throw new IllegalArgumentException("HTML 文件过大，超过 50MB，禁止解析");
             }
 
             // 2️⃣ 字符编码转换
-            String html = new String(htmlBytes, charset);
+            String html;
+            try (InputStream inputStream = source.openStream()) {
+                html = IOUtils.toString(inputStream, charset);
+            }
 
             // 3️⃣ 预清理 - 删除无关标签（script / style / title / noscript）
             html = html.replaceAll("(?is)<script.*?>.*?</script>", "")
@@ -323,37 +647,48 @@ public class GetTypeAndContent {
 
 
     public static String readExcelXlsx(byte[] bytes) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
-
-            StringBuilder sb = new StringBuilder();
-            Sheet sheet = workbook.getSheetAt(0);
-            for (Row row : sheet) {
-                for (Cell cell : row) {
-                    sb.append(cell.toString().trim()).append("\t");
-                }
-                sb.append("\n");
-            }
-            return sb.toString();
+        return readExcelXlsx(ExtractSource.of(bytes));
+    }
+
+    /**
+     * 流式读取 XLSX 的所有工作表，行数 / 单元格数受 SheetLimits 默认上限约束。
+     */
+    public static String readExcelXlsx(ExtractSource source) {
+        return readExcelXlsx(source, new ExtractContext());
+    }
+
+    /**
+     * 同上，行数上限取 SheetLimits 默认值与提取预算的较小者，达到上限时在 context 上标记截断。
+     */
+    public static String readExcelXlsx(ExtractSource source, ExtractContext context) {
+        OPCPackage pkg = null;
+        try {
+            pkg = openPackage(source);
+            return XlsxStreamExtractor.extract(pkg, sheetLimits(context), context);
         } catch (Exception e) {
             // 捕获异常并返回 null
             return null;
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
         }
     }
 
     public static String readExcelXls(byte[] bytes, String charset) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             HSSFWorkbook workbook = new HSSFWorkbook(inputStream)) {
-
-            StringBuilder sb = new StringBuilder();
-            Sheet sheet = workbook.getSheetAt(0);
-            for (Row row : sheet) {
-                for (Cell cell : row) {
-                    sb.append(cell.toString().trim()).append("\t");
-                }
-                sb.append("\n");
-            }
-            return sb.toString();
+        return readExcelXls(ExtractSource.of(bytes));
+    }
+
+    /**
+     * 基于记录事件流式读取 XLS 的所有工作表，行数 / 单元格数受 SheetLimits 默认上限约束。
+     */
+    public static String readExcelXls(ExtractSource source) {
+        return readExcelXls(source, new ExtractContext());
+    }
+
+    public static String readExcelXls(ExtractSource source, ExtractContext context) {
+        try (POIFSFileSystem fs = openPoifs(source)) {
+            return XlsStreamExtractor.extract(fs, sheetLimits(context), context);
         } catch (Exception e) {
             // 捕获异常并返回 null
             return null;
@@ -362,15 +697,17 @@ public class GetTypeAndContent {
 
 
     public static String extractTextFromOFD(byte[] ofdBytes) {
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(ofdBytes);
-             OFDReader reader = new OFDReader(inputStream)) {
+        return extractTextFromOFD(ExtractSource.of(ofdBytes));
+    }
 
-            ContentExtractor extractor = new ContentExtractor(reader);
-            StringBuilder sb = new StringBuilder();
-            for (String content : extractor.extractAll()) {
-                sb.append(content).append("\n");  // 保留换行符
-            }
-            return sb.toString();
+    public static String extractTextFromOFD(ExtractSource source) {
+        return extractTextFromOFD(source, new ExtractContext());
+    }
+
+    public static String extractTextFromOFD(ExtractSource source, ExtractContext context) {
+        try {
+            // 逐页提取，达到预算即停止；页数多时按页分段并行
+            return OfdTextExtractor.extract(source, context);
         } catch (Exception e) {
             // 捕获异常并返回 null
             return null;
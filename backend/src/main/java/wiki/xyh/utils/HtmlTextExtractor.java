@@ -0,0 +1,717 @@
+package wiki.xyh.utils;
+
+import org.jsoup.nodes.Entities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 流式 HTML 可见文本提取。边解码边做词法扫描，不构建 DOM，也不做整篇的正则预清理：
+ *               script / style / title / noscript 等原始文本元素直接跳到结束标签，
+ *               head、template 以及带 hidden 属性或 display:none / visibility:hidden 样式的元素整棵子树跳过。
+ *               解析状态只有一个打开元素栈（深度有上限），内存与嵌套深度相关而与文件大小无关。
+ *               字符集优先级与浏览器一致：BOM > 前 1024 字节内的 meta charset > 调用方探测的编码。
+ */
+public final class HtmlTextExtractor {
+
+    /**
+     * meta charset 预扫描的字节数（与 HTML 规范一致）
+     */
+    private static final int PRESCAN_SIZE = 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 打开元素栈的深度上限，超过后不再记录非隐藏元素，防止畸形文档（大量未闭合标签）撑大栈
+     */
+    private static final int MAX_DEPTH = 512;
+
+    private static final int MAX_NAME_LENGTH = 32;
+
+    private static final int MAX_STYLE_LENGTH = 512;
+
+    private static final int MAX_ENTITY_LENGTH = 32;
+
+    // attributes() 的返回标志
+    private static final int ATTR_HIDDEN = 1;
+    private static final int ATTR_SELF_CLOSING = 2;
+
+    private static final Set<String> VOID_ELEMENTS = setOf("area", "base", "br", "col", "embed", "hr", "img",
+            "input", "keygen", "link", "meta", "param", "source", "track", "wbr");
+
+    /**
+     * 内容按原始文本处理且不可见的元素，直接跳到对应的结束标签
+     */
+    private static final Set<String> RAW_SKIP_ELEMENTS = setOf("script", "style", "title", "noscript",
+            "iframe", "noembed", "noframes", "xmp");
+
+    /**
+     * 正常解析但整棵子树不可见的元素
+     */
+    private static final Set<String> HIDDEN_ELEMENTS = setOf("head", "template");
+
+    /**
+     * 允许出现在 head 中的元素，遇到其他元素时 head 隐式结束
+     */
+    private static final Set<String> HEAD_ELEMENTS = setOf("base", "link", "meta", "noscript", "script",
+            "style", "template", "title");
+
+    /**
+     * 块级元素，开始和结束处换行
+     */
+    private static final Set<String> BLOCK_ELEMENTS = setOf("address", "article", "aside", "blockquote",
+            "body", "caption", "dd", "details", "dialog", "div", "dl", "dt", "fieldset", "figcaption", "figure",
+            "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "main", "nav", "ol",
+            "p", "pre", "section", "summary", "table", "tbody", "tfoot", "thead", "tr", "ul");
+
+    /**
+     * 表格单元格，单元格之间以空格分隔
+     */
+    private static final Set<String> CELL_ELEMENTS = setOf("td", "th");
+
+    /**
+     * 再次出现同名开始标签时隐式闭合的元素
+     */
+    private static final Set<String> AUTO_CLOSE_ELEMENTS = setOf("p", "li", "dt", "dd", "option", "tr",
+            "td", "th");
+
+    private final Reader reader;
+    private final TextSink sink;
+    private final ExtractContext context;
+
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private String[] stack = new String[32];
+    private int depth;
+
+    /**
+     * 栈中最外层隐藏元素的位置，-1 表示当前可见
+     */
+    private int hiddenAt = -1;
+    private int preAt = -1;
+    private int headAt = -1;
+    private boolean headSeen;
+
+    private final StringBuilder name = new StringBuilder(MAX_NAME_LENGTH);
+    private final StringBuilder attrName = new StringBuilder(MAX_NAME_LENGTH);
+    private final StringBuilder attrValue = new StringBuilder(64);
+    private final int[] codePoints = new int[2];
+
+    private HtmlTextExtractor(Reader reader, TextSink sink, ExtractContext context) {
+        this.reader = reader;
+        this.sink = sink;
+        this.context = context;
+    }
+
+    /**
+     * 提取 HTML 的可见文本，块级元素之间换行。
+     *
+     * @param source  提取源
+     * @param charset 调用方探测的编码，文件中有 BOM 或 meta charset 时以文件声明为准
+     * @return 可见文本
+     */
+    public static String extract(ExtractSource source, String charset) throws IOException {
+        return extract(source, charset, new ExtractContext());
+    }
+
+    /**
+     * 同上，每读完一个缓冲区检查一次预算，字符数或耗时达到上限即停止。
+     */
+    public static String extract(ExtractSource source, String charset, ExtractContext context) throws IOException {
+        Charset cs = resolveCharset(source.buffer(), charset);
+        // 输出通常远小于输入，按输入的 1/4 预估容量，上限 1M 字符
+        TextSink sink = new TextSink((int) Math.min(1 << 20, Math.max(256, source.size() / 4)));
+        try (InputStream in = source.openStream();
+             Reader reader = new InputStreamReader(in, cs)) {
+            new HtmlTextExtractor(reader, sink, context).run();
+        }
+        return sink.toString();
+    }
+
+    /**
+     * 从字符流提取可见文本写入 sink，调用方负责关闭 reader。
+     */
+    public static void extract(Reader reader, TextSink sink) throws IOException {
+        new HtmlTextExtractor(reader, sink, new ExtractContext()).run();
+    }
+
+    /**
+     * 确定解码字符集：BOM > meta charset > 调用方探测的编码。
+     *
+     * @param buf      文件内容视图
+     * @param detected 调用方探测的编码
+     */
+    static Charset resolveCharset(ByteBuffer buf, String detected) {
+        int base = buf.position();
+        int n = Math.min(buf.remaining(), PRESCAN_SIZE);
+        if (n >= 3 && (buf.get(base) & 0xFF) == 0xEF && (buf.get(base + 1) & 0xFF) == 0xBB
+                && (buf.get(base + 2) & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (n >= 2 && (buf.get(base) & 0xFF) == 0xFE && (buf.get(base + 1) & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (n >= 2 && (buf.get(base) & 0xFF) == 0xFF && (buf.get(base + 1) & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        byte[] head = new byte[n];
+        for (int i = 0; i < n; i++) {
+            head[i] = buf.get(base + i);
+        }
+        String declared = prescanMetaCharset(new String(head, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT));
+        Charset cs = declared == null ? null : forLabel(declared, true);
+        if (cs != null) {
+            return cs;
+        }
+        cs = detected == null ? null : forLabel(detected, false);
+        return cs != null ? cs : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * 在文件头中查找 meta 声明的字符集：meta charset="x" 或 meta http-equiv content="...; charset=x"。
+     */
+    private static String prescanMetaCharset(String head) {
+        int from = 0;
+        int meta;
+        while ((meta = head.indexOf("<meta", from)) >= 0) {
+            int end = head.indexOf('>', meta);
+            if (end < 0) {
+                return null;
+            }
+            String tag = head.substring(meta, end);
+            int i = tag.indexOf("charset");
+            if (i >= 0) {
+                i += "charset".length();
+                while (i < tag.length() && (tag.charAt(i) == ' ' || tag.charAt(i) == '=')) {
+                    i++;
+                }
+                while (i < tag.length() && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+                    i++;
+                }
+                int start = i;
+                while (i < tag.length() && "\"' ;/\t\r\n".indexOf(tag.charAt(i)) < 0) {
+                    i++;
+                }
+                if (i > start) {
+                    return tag.substring(start, i);
+                }
+            }
+            from = end;
+        }
+        return null;
+    }
+
+    /**
+     * 按 WHATWG 编码标签的习惯映射：gb2312 按 GBK 解码，latin1 / ascii 按 windows-1252 解码；
+     * meta 中声明的 utf-16 不可信（能读出 meta 说明是 ASCII 兼容编码），按 UTF-8 处理。
+     *
+     * @param label    编码名
+     * @param declared 是否来自文件中的 meta 声明
+     */
+    private static Charset forLabel(String label, boolean declared) {
+        String l = label.trim().toLowerCase(Locale.ROOT);
+        if (l.equals("gb2312") || l.equals("gb_2312-80") || l.equals("x-gbk")) {
+            l = "gbk";
+        } else if (l.equals("iso-8859-1") || l.equals("latin1") || l.equals("us-ascii") || l.equals("ascii")) {
+            l = "windows-1252";
+        } else if (declared && l.startsWith("utf-16")) {
+            l = "utf-8";
+        }
+        try {
+            return Charset.isSupported(l) ? Charset.forName(l) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void run() throws IOException {
+        int c;
+        while (true) {
+            if (pos == limit && context.shouldStop(sink.length())) {
+                return;
+            }
+            if ((c = read()) == -1) {
+                return;
+            }
+            if (c == '<') {
+                tag();
+            } else if (c == '&') {
+                entity();
+            } else {
+                text((char) c);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 读取
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = reader.read(buf, 0, buf.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    /**
+     * 退回刚读到的一个字符，只能在 read() 返回非 -1 之后调用一次。
+     */
+    private void unread() {
+        pos--;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int toLower(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    // ---------------------------------------------------------------- 文本
+
+    private void text(char c) {
+        if (hiddenAt >= 0) {
+            if (hiddenAt == headAt && depth == headAt + 1 && !isWhitespace(c)) {
+                // head 中出现正文文字：head 隐式结束
+                closeTo(headAt);
+            } else {
+                return;
+            }
+        }
+        if (c == '\uFEFF') {
+            return;
+        }
+        if (preAt >= 0) {
+            if (c != '\r') {
+                sink.appendRaw(c);
+            }
+        } else if (isWhitespace(c)) {
+            sink.space();
+        } else {
+            sink.append(c);
+        }
+    }
+
+    private void text(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            text(s.charAt(i));
+        }
+    }
+
+    /**
+     * 解码字符引用：&#123; / &#x7B; / &amp; 等，无法识别的原样输出。
+     */
+    private void entity() throws IOException {
+        int c = read();
+        if (c == '#') {
+            boolean hex = false;
+            c = read();
+            if (c == 'x' || c == 'X') {
+                hex = true;
+                c = read();
+            }
+            int value = 0;
+            int digits = 0;
+            while (c != -1 && Character.digit(c, hex ? 16 : 10) >= 0) {
+                if (value <= 0x10FFFF) {
+                    value = value * (hex ? 16 : 10) + Character.digit(c, hex ? 16 : 10);
+                }
+                digits++;
+                c = read();
+            }
+            if (c != ';' && c != -1) {
+                unread();
+            }
+            if (digits == 0) {
+                text(hex ? "&#x" : "&#");
+                return;
+            }
+            if (value == 0 || value > 0x10FFFF || (value >= 0xD800 && value <= 0xDFFF)) {
+                value = 0xFFFD;
+            }
+            codePoint(value);
+            return;
+        }
+
+        name.setLength(0);
+        while (c != -1 && (isAsciiLetter(c) || (c >= '0' && c <= '9')) && name.length() < MAX_ENTITY_LENGTH) {
+            name.append((char) c);
+            c = read();
+        }
+        boolean terminated = c == ';';
+        if (!terminated && c != -1) {
+            unread();
+        }
+        if (name.length() > 0) {
+            String entityName = name.toString();
+            // 不带分号时只识别 HTML4 的基础实体（&nbsp &amp 等），与浏览器一致
+            if (terminated || Entities.isBaseNamedEntity(entityName)) {
+                int count = Entities.codepointsForName(entityName, codePoints);
+                if (count > 0) {
+                    for (int i = 0; i < count; i++) {
+                        codePoint(codePoints[i]);
+                    }
+                    return;
+                }
+            }
+        }
+        text('&');
+        text(name);
+        if (terminated) {
+            text(';');
+        }
+    }
+
+    private void codePoint(int cp) {
+        if (Character.isBmpCodePoint(cp)) {
+            text((char) cp);
+        } else if (hiddenAt < 0) {
+            sink.appendCodePoint(cp);
+        }
+    }
+
+    // ---------------------------------------------------------------- 标签
+
+    private void tag() throws IOException {
+        int c = read();
+        if (c == -1) {
+            text('<');
+        } else if (c == '!') {
+            markupDeclaration();
+        } else if (c == '?') {
+            skipPast('>');
+        } else if (c == '/') {
+            c = read();
+            if (isAsciiLetter(c)) {
+                String tagName = readName(c);
+                attributes();
+                endTag(tagName);
+            } else if (c == -1) {
+                text("</");
+            } else if (c != '>') {
+                // </ 后不是字母：按注释忽略
+                skipPast('>');
+            }
+        } else if (isAsciiLetter(c)) {
+            String tagName = readName(c);
+            int flags = attributes();
+            startTag(tagName, (flags & ATTR_HIDDEN) != 0, (flags & ATTR_SELF_CLOSING) != 0);
+        } else {
+            // 不是标签的 <，按文字输出，下一个字符重新处理
+            text('<');
+            unread();
+        }
+    }
+
+    /**
+     * 注释、DOCTYPE、CDATA 等 <! 开头的声明，全部跳过。
+     */
+    private void markupDeclaration() throws IOException {
+        int c = read();
+        if (c == '-') {
+            c = read();
+            if (c == '-') {
+                // 注释：跳到 -->
+                int dashes = 0;
+                while ((c = read()) != -1) {
+                    if (c == '-') {
+                        dashes++;
+                    } else if (c == '>' && dashes >= 2) {
+                        return;
+                    } else {
+                        dashes = 0;
+                    }
+                }
+                return;
+            }
+        }
+        if (c != -1 && c != '>') {
+            skipPast('>');
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) {
+            // skip
+        }
+    }
+
+    /**
+     * 读取小写标签名，超长部分丢弃。
+     */
+    private String readName(int first) throws IOException {
+        name.setLength(0);
+        int c = first;
+        while (c != -1 && !isWhitespace(c) && c != '/' && c != '>') {
+            if (name.length() < MAX_NAME_LENGTH) {
+                name.append((char) toLower(c));
+            }
+            c = read();
+        }
+        if (c != -1) {
+            unread();
+        }
+        return name.toString();
+    }
+
+    /**
+     * 读取属性直到标签结束，只关心 hidden 与 style；引号内的 > 不会结束标签。
+     *
+     * @return ATTR_HIDDEN / ATTR_SELF_CLOSING 组合
+     */
+    private int attributes() throws IOException {
+        int flags = 0;
+        boolean selfClosing = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '>') {
+                break;
+            }
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (c == '/') {
+                selfClosing = true;
+                continue;
+            }
+            selfClosing = false;
+
+            attrName.setLength(0);
+            while (c != -1 && !isWhitespace(c) && c != '/' && c != '>' && c != '=') {
+                if (attrName.length() < MAX_NAME_LENGTH) {
+                    attrName.append((char) toLower(c));
+                }
+                c = read();
+            }
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            boolean isStyle = "style".contentEquals(attrName);
+            attrValue.setLength(0);
+            if (c == '=') {
+                c = read();
+                while (isWhitespace(c)) {
+                    c = read();
+                }
+                if (c == '"' || c == '\'') {
+                    int quote = c;
+                    while ((c = read()) != -1 && c != quote) {
+                        if (isStyle && attrValue.length() < MAX_STYLE_LENGTH) {
+                            attrValue.append((char) c);
+                        }
+                    }
+                } else {
+                    while (c != -1 && !isWhitespace(c) && c != '>') {
+                        if (isStyle && attrValue.length() < MAX_STYLE_LENGTH) {
+                            attrValue.append((char) c);
+                        }
+                        c = read();
+                    }
+                    if (c == '>') {
+                        unread();
+                    }
+                }
+            } else if (c != -1) {
+                unread();
+            }
+
+            if ("hidden".contentEquals(attrName) || (isStyle && styleHides(attrValue))) {
+                flags |= ATTR_HIDDEN;
+            }
+        }
+        return selfClosing ? flags | ATTR_SELF_CLOSING : flags;
+    }
+
+    /**
+     * 样式是否隐藏元素：display:none 或 visibility:hidden（忽略空白与大小写）。
+     */
+    private static boolean styleHides(CharSequence style) {
+        StringBuilder compact = new StringBuilder(style.length());
+        for (int i = 0; i < style.length(); i++) {
+            char ch = style.charAt(i);
+            if (!isWhitespace(ch)) {
+                compact.append((char) toLower(ch));
+            }
+        }
+        return compact.indexOf("display:none") >= 0 || compact.indexOf("visibility:hidden") >= 0;
+    }
+
+    private void startTag(String tagName, boolean hidden, boolean selfClosing) throws IOException {
+        if (headAt >= 0 && depth == headAt + 1 && !HEAD_ELEMENTS.contains(tagName)) {
+            // head 中出现正文元素：head 隐式结束
+            closeTo(headAt);
+        }
+
+        if (RAW_SKIP_ELEMENTS.contains(tagName)) {
+            if (!selfClosing) {
+                skipRawText(tagName);
+            }
+            return;
+        }
+        if (VOID_ELEMENTS.contains(tagName)) {
+            if (hiddenAt < 0 && (tagName.equals("br") || tagName.equals("hr"))) {
+                sink.lineBreak();
+            }
+            return;
+        }
+        if (tagName.equals("head")) {
+            if (headSeen || depth > 1) {
+                // 重复的 head 或出现在正文中的 head 忽略
+                return;
+            }
+            headSeen = true;
+        } else if (tagName.equals("body")) {
+            headSeen = true;
+        }
+
+        if (depth > 0) {
+            String top = stack[depth - 1];
+            if ((AUTO_CLOSE_ELEMENTS.contains(tagName) && top.equals(tagName))
+                    || (top.equals("p") && BLOCK_ELEMENTS.contains(tagName))) {
+                closeTo(depth - 1);
+            }
+        }
+
+        if (hiddenAt < 0) {
+            if (BLOCK_ELEMENTS.contains(tagName)) {
+                sink.lineBreak();
+            } else if (CELL_ELEMENTS.contains(tagName)) {
+                sink.space();
+            }
+        }
+        if (!selfClosing) {
+            push(tagName, hidden || HIDDEN_ELEMENTS.contains(tagName));
+        }
+    }
+
+    private void endTag(String tagName) {
+        if (tagName.equals("br")) {
+            if (hiddenAt < 0) {
+                sink.lineBreak();
+            }
+            return;
+        }
+        int i = depth - 1;
+        while (i >= 0 && !stack[i].equals(tagName)) {
+            i--;
+        }
+        if (i < 0) {
+            // 没有对应的开始标签：忽略
+            return;
+        }
+        closeTo(i);
+        if (hiddenAt < 0) {
+            if (BLOCK_ELEMENTS.contains(tagName)) {
+                sink.lineBreak();
+            } else if (CELL_ELEMENTS.contains(tagName)) {
+                sink.space();
+            }
+        }
+    }
+
+    private void push(String tagName, boolean hidden) {
+        if (depth >= MAX_DEPTH && !hidden) {
+            return;
+        }
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        if (hidden && hiddenAt < 0) {
+            hiddenAt = depth;
+        }
+        if (tagName.equals("pre") && preAt < 0) {
+            preAt = depth;
+        }
+        if (tagName.equals("head")) {
+            headAt = depth;
+        }
+        stack[depth++] = tagName;
+    }
+
+    /**
+     * 弹出栈中 index 及以上的元素。
+     */
+    private void closeTo(int index) {
+        for (int i = index; i < depth; i++) {
+            stack[i] = null;
+        }
+        depth = index;
+        if (hiddenAt >= depth) {
+            hiddenAt = -1;
+        }
+        if (preAt >= depth) {
+            preAt = -1;
+        }
+        if (headAt >= depth) {
+            headAt = -1;
+        }
+    }
+
+    /**
+     * 跳过原始文本元素的内容，直到 &lt;/tagName（不区分大小写）后跟空白、/ 或 &gt;。
+     */
+    private void skipRawText(String tagName) throws IOException {
+        int c;
+        outer:
+        while ((c = read()) != -1) {
+            if (c != '<') {
+                continue;
+            }
+            c = read();
+            if (c != '/') {
+                if (c == -1) {
+                    return;
+                }
+                unread();
+                continue;
+            }
+            for (int i = 0; i < tagName.length(); i++) {
+                c = read();
+                if (c == -1) {
+                    return;
+                }
+                if (toLower(c) != tagName.charAt(i)) {
+                    unread();
+                    continue outer;
+                }
+            }
+            c = read();
+            if (c == -1 || c == '>') {
+                return;
+            }
+            if (isWhitespace(c) || c == '/') {
+                attributes();
+                return;
+            }
+            unread();
+        }
+    }
+
+    private static Set<String> setOf(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+}
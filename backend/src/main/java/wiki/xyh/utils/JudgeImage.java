@@ -9,24 +9,21 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashSet;
 
 //@Slf4j
 public class JudgeImage {
 
-    // 支持的图片文件头（魔数）前缀，用十六进制字符串表示
-    private static final HashSet<String> imageMagicHeaders = new HashSet<>();
-
-    static {
-        imageMagicHeaders.add("FFD8FF");       // JPEG
-        imageMagicHeaders.add("89504E47");     // PNG
-        imageMagicHeaders.add("47494638");     // GIF
-        imageMagicHeaders.add("49492A00");     // TIFF (little endian)
-        imageMagicHeaders.add("4D4D002A");     // TIFF (big endian)
-        imageMagicHeaders.add("424D");         // BMP
-        imageMagicHeaders.add("38425053");     // PSD
-        imageMagicHeaders.add("52494646");     // WebP, FPX 开头
-    }
+    // 支持的图片文件头（魔数）前缀
+    private static final byte[][] IMAGE_MAGIC_HEADERS = {
+            {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},             // JPEG
+            {(byte) 0x89, (byte) 0x50, (byte) 0x4E, (byte) 0x47}, // PNG
+            {(byte) 0x47, (byte) 0x49, (byte) 0x46, (byte) 0x38}, // GIF
+            {(byte) 0x49, (byte) 0x49, (byte) 0x2A, (byte) 0x00}, // TIFF (little endian)
+            {(byte) 0x4D, (byte) 0x4D, (byte) 0x00, (byte) 0x2A}, // TIFF (big endian)
+            {(byte) 0x42, (byte) 0x4D},                           // BMP
+            {(byte) 0x38, (byte) 0x42, (byte) 0x50, (byte) 0x53}, // PSD
+            {(byte) 0x52, (byte) 0x49, (byte) 0x46, (byte) 0x46}, // WebP, FPX 开头
+    };
 
     /**
      * 判断二进制内容是否为图片类型
@@ -37,22 +34,23 @@ public class JudgeImage {
     public static boolean isImage(byte[] bytes) {
         if (bytes == null || bytes.length < 4) return false;
 
-        // 读取前 4~8 个字节转换为十六进制字符串
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < Math.min(8, bytes.length); i++) {
-            sb.append(String.format("%02X", bytes[i]));
-        }
-        String fileHeader = sb.toString().toUpperCase();
-
-        // 逐个比对魔数是否匹配
-        for (String magic : imageMagicHeaders) {
-            if (fileHeader.startsWith(magic)) {
+        // 直接按字节比对魔数前缀，不做十六进制字符串转换
+        for (byte[] magic : IMAGE_MAGIC_HEADERS) {
+            if (startsWith(bytes, magic)) {
                 return true;
             }
         }
         return false;
     }
 
+    private static boolean startsWith(byte[] bytes, byte[] magic) {
+        if (bytes.length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if (bytes[i] != magic[i]) return false;
+        }
+        return true;
+    }
+
     public static void main(String[] args) throws IOException {
         // 测试用例
         byte[] bytes = FileUtils.readFileToByteArray(new File("E:\\00-temp\\屏幕截图 2024-05-21 113600.png"));
@@ -0,0 +1,127 @@
+package wiki.xyh.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 预编译的文件头魔数字节树。根节点是 256 路跳转表，沿文件头逐字节下行，
+ *               一次遍历得到最长匹配，匹配成本只与魔数长度有关，与文件大小无关。
+ */
+public final class MagicNumberTrie {
+
+    /**
+     * 魔数匹配结果。
+     * strong 为 false 的魔数本身是可打印 ASCII（如 BMP 的 "BM"、GIF 的 "GIF8"），
+     * 普通文本也可能以它开头，需要先做文本探测再采信。
+     */
+    public static final class Match {
+        private final FileTypeDetector.FileType type;
+        private final boolean zip;
+        private final boolean strong;
+
+        private Match(FileTypeDetector.FileType type, boolean zip, boolean strong) {
+            this.type = type;
+            this.zip = zip;
+            this.strong = strong;
+        }
+
+        public FileTypeDetector.FileType getType() {
+            return type;
+        }
+
+        /**
+         * 是否为 ZIP 容器，需要进一步读中央目录区分具体格式
+         */
+        public boolean isZip() {
+            return zip;
+        }
+
+        /**
+         * 是否为 OLE2 复合文档，需要进一步读目录区分具体格式
+         */
+        public boolean isOle2() {
+            return !zip && type == FileTypeDetector.FileType.DOC;
+        }
+
+        public boolean isStrong() {
+            return strong;
+        }
+    }
+
+    private static final class Node {
+        private Node[] next;
+        private Match match;
+    }
+
+    private static final Node ROOT = new Node();
+
+    /**
+     * 最长魔数的字节数
+     */
+    private static int maxDepth;
+
+    static {
+        // OLE2 复合文档（DOC / XLS / PPT / MSG 共用）
+        add(FileTypeDetector.FileType.DOC, false, true, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1);
+        // ZIP：本地文件头 / 空包
+        add(FileTypeDetector.FileType.UNKNOWN, true, true, 0x50, 0x4B, 0x03, 0x04);
+        add(FileTypeDetector.FileType.UNKNOWN, true, true, 0x50, 0x4B, 0x05, 0x06);
+        // %PDF
+        add(FileTypeDetector.FileType.PDF, false, true, 0x25, 0x50, 0x44, 0x46);
+        // {\rtf
+        add(FileTypeDetector.FileType.RTF, false, true, 0x7B, 0x5C, 0x72, 0x74, 0x66);
+        // 图片
+        add(FileTypeDetector.FileType.JPEG, false, true, 0xFF, 0xD8, 0xFF);
+        add(FileTypeDetector.FileType.JPEG, false, true, 0x89, 0x50, 0x4E, 0x47);
+        add(FileTypeDetector.FileType.JPEG, false, true, 0x49, 0x49, 0x2A, 0x00);
+        add(FileTypeDetector.FileType.JPEG, false, true, 0x4D, 0x4D, 0x00, 0x2A);
+        add(FileTypeDetector.FileType.JPEG, false, false, 0x47, 0x49, 0x46, 0x38);
+        add(FileTypeDetector.FileType.JPEG, false, false, 0x42, 0x4D);
+        add(FileTypeDetector.FileType.JPEG, false, false, 0x38, 0x42, 0x50, 0x53);
+        add(FileTypeDetector.FileType.JPEG, false, false, 0x52, 0x49, 0x46, 0x46);
+    }
+
+    private MagicNumberTrie() {
+    }
+
+    private static void add(FileTypeDetector.FileType type, boolean zip, boolean strong, int... magic) {
+        Node node = ROOT;
+        for (int b : magic) {
+            if (node.next == null) {
+                node.next = new Node[256];
+            }
+            Node child = node.next[b];
+            if (child == null) {
+                child = new Node();
+                node.next[b] = child;
+            }
+            node = child;
+        }
+        node.match = new Match(type, zip, strong);
+        maxDepth = Math.max(maxDepth, magic.length);
+    }
+
+    /**
+     * 对 buffer 从 position 开始的文件头做最长魔数匹配，不改变 position。
+     *
+     * @param buf 文件内容
+     * @return 匹配结果，未匹配返回 null
+     */
+    public static Match match(ByteBuffer buf) {
+        int start = buf.position();
+        int end = Math.min(buf.limit(), start + maxDepth);
+        Node node = ROOT;
+        Match best = null;
+        for (int i = start; i < end && node.next != null; i++) {
+            node = node.next[buf.get(i) & 0xFF];
+            if (node == null) {
+                break;
+            }
+            if (node.match != null) {
+                best = node.match;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,349 @@
+package wiki.xyh.utils;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 乱码评分器。字符分类使用启动时预计算的 65536 项查表（BMP 内每个字符一次数组访问），
+ *               按 1024 字符的块在全文中均匀抽样统计：首轮取均匀分布的 16 个块，之后每个块都检查各比例与阈值的距离，
+ *               距离超过 3 个标准误（结论已在统计上确定）即提前结束，多 MB 的文本通常只需扫描十几 KB。
+ *               返回是否乱码以及结论的置信度；比例阈值按语言配置（Profile），默认沿用原中文规则的阈值。
+ *               字符分类与原 WsTextUtils.isMess 有两处有意的差异：原实现把汉字、字母、数字以外的字符全部算作符号，
+ *               “不可识别”计数恒为 0；这里把替换字符 U+FFFD、控制字符、未分配码位、私用区与孤立代理计为不可识别
+ *               （超过 10% 即判为乱码，用于识别按错误编码解码的文本），并把扩展 B 及以后的汉字（代理对）计为一个汉字而不是两个符号。
+ */
+public final class MessScorer {
+
+    // 字符类别
+    static final byte C_IGNORE = 0;
+    static final byte C_CJK = 1;
+    static final byte C_LATIN = 2;
+    static final byte C_DIGIT = 3;
+    static final byte C_SYMBOL = 4;
+    static final byte C_UNRECOGNIZED = 5;
+    /**
+     * UTF-16 高位代理，需要结合下一个字符判断
+     */
+    static final byte C_HIGH_SURROGATE = 6;
+
+    private static final byte[] CLASS = new byte[65536];
+
+    private static final int BLOCK = 1024;
+
+    /**
+     * 均匀抽样的首轮块数
+     */
+    private static final int FIRST_PASS_BLOCKS = 16;
+
+    /**
+     * 允许提前结束前至少统计的有效字符数
+     */
+    private static final int MIN_SAMPLE = 512;
+
+    /**
+     * 提前结束要求的标准误倍数
+     */
+    private static final double SETTLED_Z = 3.0;
+
+    private static volatile Profile defaultProfile = Profile.ZH;
+
+    static {
+        for (int c = 0; c < CLASS.length; c++) {
+            CLASS[c] = classify((char) c);
+        }
+    }
+
+    private MessScorer() {
+    }
+
+    private static byte classify(char c) {
+        if (Character.isWhitespace(c) || c == '\u00A0' || c == '×') {
+            return C_IGNORE;
+        }
+        if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+            return C_LATIN;
+        }
+        if (c >= '0' && c <= '9') {
+            return C_DIGIT;
+        }
+        if (Character.isHighSurrogate(c)) {
+            return C_HIGH_SURROGATE;
+        }
+        Character.UnicodeBlock ub = Character.UnicodeBlock.of(c);
+        if (ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || ub == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || ub == Character.UnicodeBlock.GENERAL_PUNCTUATION
+                || ub == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || ub == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS) {
+            return C_CJK;
+        }
+        int type = Character.getType(c);
+        if (c == '\uFFFD' || type == Character.CONTROL || type == Character.UNASSIGNED
+                || type == Character.PRIVATE_USE || type == Character.SURROGATE) {
+            // 替换字符、控制字符、未分配码位、私用区、孤立的低位代理：解码失败的典型产物
+            return C_UNRECOGNIZED;
+        }
+        return C_SYMBOL;
+    }
+
+    /**
+     * 设置默认的语言配置，WsTextUtils.isMess 使用该配置。
+     */
+    public static void setDefaultProfile(Profile profile) {
+        defaultProfile = profile == null ? Profile.ZH : profile;
+    }
+
+    public static Profile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * 按默认语言配置评分。
+     */
+    public static Verdict score(String text) {
+        return score(text, defaultProfile);
+    }
+
+    /**
+     * 评分。
+     *
+     * @param text    待评估文本
+     * @param profile 语言配置
+     * @return 评分结果
+     */
+    public static Verdict score(String text, Profile profile) {
+        if (text == null || text.isEmpty()) {
+            // 空文本认为是乱码
+            return new Verdict(true, 1.0, 0, 0);
+        }
+        int[] counts = new int[6];
+        int length = text.length();
+        int blocks = (length + BLOCK - 1) / BLOCK;
+        int stride = Math.max(1, blocks / FIRST_PASS_BLOCKS);
+        int scanned = 0;
+
+        Evaluation eval = null;
+        // 首轮取均匀分布的若干块，之后每轮整体右移一块，最终覆盖全文
+        for (int phase = 0; phase < stride; phase++) {
+            for (int b = phase; b < blocks; b += stride) {
+                int start = b * BLOCK;
+                int end = Math.min(length, start + BLOCK);
+                countBlock(text, start, end, counts);
+                scanned += end - start;
+                int n = total(counts);
+                // 首轮均匀抽样完成后才允许提前结束，避免只凭开头（如封面、目录）下结论
+                boolean firstPassDone = phase > 0 || b + stride >= blocks;
+                if (firstPassDone && n >= MIN_SAMPLE && scanned < length) {
+                    eval = evaluate(counts, n, profile);
+                    if (eval.z >= SETTLED_Z) {
+                        return eval.toVerdict(n, scanned);
+                    }
+                }
+            }
+        }
+        int n = total(counts);
+        if (n == 0) {
+            return new Verdict(true, 1.0, 0, scanned);
+        }
+        eval = evaluate(counts, n, profile);
+        return eval.toVerdict(n, scanned);
+    }
+
+    /**
+     * 统计 [start, end) 内的字符。跨越块边界的代理对归属高位代理所在的块：
+     * 块末尾的高位代理与下一块开头的低位代理合并计数，下一块跳过该低位代理。
+     */
+    private static void countBlock(String text, int start, int end, int[] counts) {
+        if (start > 0 && start < end && Character.isLowSurrogate(text.charAt(start))
+                && Character.isHighSurrogate(text.charAt(start - 1))) {
+            start++;
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            byte cls = CLASS[c];
+            if (cls == C_HIGH_SURROGATE) {
+                if (i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(i + 1));
+                    // 扩展 B 及以后的汉字
+                    counts[Character.isIdeographic(cp) ? C_CJK : C_SYMBOL]++;
+                    i++;
+                } else {
+                    counts[C_UNRECOGNIZED]++;
+                }
+            } else {
+                counts[cls]++;
+            }
+        }
+    }
+
+    private static int total(int[] counts) {
+        return counts[C_CJK] + counts[C_LATIN] + counts[C_DIGIT] + counts[C_SYMBOL] + counts[C_UNRECOGNIZED];
+    }
+
+    /**
+     * 逐条规则计算比例与阈值的距离（以标准误为单位）。
+     * 判为乱码时取违反得最明显的规则；判为正常时取最接近阈值的规则。
+     */
+    private static Evaluation evaluate(int[] counts, int n, Profile p) {
+        double primary = (double) counts[p.primaryClass] / n;
+        double secondary = (double) counts[p.secondaryClass] / n;
+        double unrec = (double) counts[C_UNRECOGNIZED] / n;
+        double digit = (double) counts[C_DIGIT] / n;
+        double symbol = (double) counts[C_SYMBOL] / n;
+
+        // margin > 0 表示违反规则（乱码），< 0 表示满足
+        double[] margins = {
+                secondary - p.maxSecondaryRatio,
+                unrec - p.maxUnrecognizedRatio,
+                Math.min(p.softPrimaryRatio - primary, primary - digit - symbol),
+                p.minPrimaryRatio - primary,
+                digit - p.maxDigitRatio,
+                symbol - p.maxSymbolRatio
+        };
+        // 二项比例的标准误上界
+        double se = Math.sqrt(0.25 / n);
+
+        double worst = Double.NEGATIVE_INFINITY;
+        for (double m : margins) {
+            worst = Math.max(worst, m);
+        }
+        boolean mess = worst > 0;
+        double z;
+        if (mess) {
+            z = worst / se;
+        } else {
+            z = -worst / se;
+        }
+        return new Evaluation(mess, z);
+    }
+
+    private static final class Evaluation {
+        private final boolean mess;
+        private final double z;
+
+        private Evaluation(boolean mess, double z) {
+            this.mess = mess;
+            this.z = z;
+        }
+
+        private Verdict toVerdict(int sampled, int scanned) {
+            // z = 0 时置信度 0.5，z >= 3 时为 1
+            double confidence = Math.min(1.0, 0.5 + z / (2 * SETTLED_Z));
+            return new Verdict(mess, confidence, sampled, scanned);
+        }
+    }
+
+    /**
+     * 评分结果。
+     */
+    public static final class Verdict {
+        private final boolean mess;
+        private final double confidence;
+        private final int sampled;
+        private final int scanned;
+
+        private Verdict(boolean mess, double confidence, int sampled, int scanned) {
+            this.mess = mess;
+            this.confidence = confidence;
+            this.sampled = sampled;
+            this.scanned = scanned;
+        }
+
+        public boolean isMess() {
+            return mess;
+        }
+
+        /**
+         * 结论的置信度，0.5 ~ 1.0，越接近 1 越确定
+         */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        /**
+         * 参与统计的有效字符数（不含空白）
+         */
+        public int getSampled() {
+            return sampled;
+        }
+
+        /**
+         * 实际扫描的字符数
+         */
+        public int getScanned() {
+            return scanned;
+        }
+
+        @Override
+        public String toString() {
+            return "Verdict{mess=" + mess + ", confidence=" + confidence
+                    + ", sampled=" + sampled + ", scanned=" + scanned + '}';
+        }
+    }
+
+    /**
+     * 语言配置：主文字（中文为汉字、英文为拉丁字母）的最低占比与其他各类字符的最高占比。
+     */
+    public static final class Profile {
+
+        /**
+         * 中文：比例阈值与原 WsTextUtils.isMess 相同；不可识别字符的分类是新增的，见类注释
+         */
+        public static final Profile ZH = new Profile(C_CJK, C_LATIN, 0.4, 0.5, 0.8, 0.1, 0.8, 0.8);
+
+        /**
+         * 英文：拉丁字母为主文字，汉字占比过高或符号过多视为乱码
+         */
+        public static final Profile EN = new Profile(C_LATIN, C_CJK, 0.5, 0.0, 0.5, 0.05, 0.6, 0.4);
+
+        private final byte primaryClass;
+        private final byte secondaryClass;
+        private final double minPrimaryRatio;
+        private final double softPrimaryRatio;
+        private final double maxSecondaryRatio;
+        private final double maxUnrecognizedRatio;
+        private final double maxDigitRatio;
+        private final double maxSymbolRatio;
+
+        private Profile(byte primaryClass, byte secondaryClass, double minPrimaryRatio, double softPrimaryRatio,
+                        double maxSecondaryRatio, double maxUnrecognizedRatio,
+                        double maxDigitRatio, double maxSymbolRatio) {
+            this.primaryClass = primaryClass;
+            this.secondaryClass = secondaryClass;
+            this.minPrimaryRatio = minPrimaryRatio;
+            this.softPrimaryRatio = softPrimaryRatio;
+            this.maxSecondaryRatio = maxSecondaryRatio;
+            this.maxUnrecognizedRatio = maxUnrecognizedRatio;
+            this.maxDigitRatio = maxDigitRatio;
+            this.maxSymbolRatio = maxSymbolRatio;
+        }
+
+        /**
+         * 按语言代码取内置配置，目前支持 zh / en。
+         */
+        public static Profile of(String language) {
+            return "en".equalsIgnoreCase(language) ? EN : ZH;
+        }
+
+        /**
+         * 在当前配置基础上覆盖阈值，参数为 null 的保持不变。
+         *
+         * @param minPrimaryRatio      主文字最低占比
+         * @param maxSecondaryRatio    次要文字（中文配置为拉丁字母，英文配置为汉字）最高占比
+         * @param maxUnrecognizedRatio 不可识别字符最高占比
+         * @param maxDigitRatio        数字最高占比
+         * @param maxSymbolRatio       符号最高占比
+         * @return 新的配置
+         */
+        public Profile with(Double minPrimaryRatio, Double maxSecondaryRatio, Double maxUnrecognizedRatio,
+                            Double maxDigitRatio, Double maxSymbolRatio) {
+            return new Profile(primaryClass, secondaryClass,
+                    minPrimaryRatio != null ? minPrimaryRatio : this.minPrimaryRatio,
+                    softPrimaryRatio,
+                    maxSecondaryRatio != null ? maxSecondaryRatio : this.maxSecondaryRatio,
+                    maxUnrecognizedRatio != null ? maxUnrecognizedRatio : this.maxUnrecognizedRatio,
+                    maxDigitRatio != null ? maxDigitRatio : this.maxDigitRatio,
+                    maxSymbolRatio != null ? maxSymbolRatio : this.maxSymbolRatio);
+        }
+    }
+}
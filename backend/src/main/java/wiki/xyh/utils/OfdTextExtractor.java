@@ -0,0 +1,233 @@
+package wiki.xyh.utils;
+
+import org.ofdrw.reader.ContentExtractor;
+import org.ofdrw.reader.OFDReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: OFD 逐页文本提取。按页调用 ContentExtractor.getPageContent，每页文本写入输出后即丢弃，
+ *               不再经 extractAll 把整份文档的文本先收集成列表再拼接。
+ *               落盘文件直接交给 OFDReader（按 ZIP 中央目录解包），内存源才经输入流解包。
+ *               页数达到阈值时按页分段并行：OFD 包只解压一次，其余线程以只读方式打开同一个工作目录
+ *               （OFDReader 内部的资源定位器有状态，不能跨线程共用），各分段按页码顺序、完成一段输出一段。
+ */
+public final class OfdTextExtractor {
+
+    /**
+     * 每个分段的最少页数
+     */
+    private static final int MIN_CHUNK_PAGES = 8;
+
+    /**
+     * 每个线程平均领取的分段数，分段越多各线程负载越均衡
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private static volatile ExecutorService parallelExecutor;
+    private static volatile int parallelism = 1;
+    private static volatile int parallelPageThreshold = 0;
+
+    private OfdTextExtractor() {
+    }
+
+    /**
+     * 注册分段并行线程池。
+     *
+     * @param executor      线程池，为 null 时不并行
+     * @param parallelism   同时处理的分段数（含调用线程），小于等于 1 表示不并行
+     * @param pageThreshold 页数达到该值才并行，小于等于 0 表示不并行
+     */
+    public static void setParallelExecutor(ExecutorService executor, int parallelism, int pageThreshold) {
+        OfdTextExtractor.parallelExecutor = executor;
+        OfdTextExtractor.parallelism = parallelism;
+        OfdTextExtractor.parallelPageThreshold = pageThreshold;
+    }
+
+    public static String extract(ExtractSource source, ExtractContext context) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        extract(source, context, sb);
+        return sb.toString();
+    }
+
+    /**
+     * 逐页提取，每页的每个文字块后跟一个换行，按页码顺序写入 out；达到预算即停止并在 context 上标记截断。
+     *
+     * @param source  提取源
+     * @param context 提取上下文，逐页汇报进度
+     * @param out     文本输出
+     */
+    public static void extract(ExtractSource source, ExtractContext context, Appendable out) throws Exception {
+        try (OFDReader reader = source.isFile()
+                ? new OFDReader(source.file().toPath())
+                : new OFDReader(new ByteArrayInputStream(source.bytes()))) {
+
+            int pages = context.pageLimit(reader.getNumberOfPages());
+            context.setTotalPages(pages);
+
+            ExecutorService executor = parallelExecutor;
+            int workers = Math.min(parallelism, (pages + MIN_CHUNK_PAGES - 1) / MIN_CHUNK_PAGES);
+            // 限制字符数的预览请求顺序读取，最早停下
+            if (executor != null && workers > 1 && parallelPageThreshold > 0 && pages >= parallelPageThreshold
+                    && !context.getBudget().hasCharLimit()) {
+                extractParallel(reader, pages, context, out, executor, workers);
+                return;
+            }
+
+            ContentExtractor extractor = new ContentExtractor(reader);
+            int written = 0;
+            for (int page = 1; page <= pages; page++) {
+                written += appendPage(extractor, page, out);
+                context.pageDone();
+                if (page < pages && context.shouldStop(written)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 追加一页的文字块，返回写入的字符数。
+     */
+    private static int appendPage(ContentExtractor extractor, int page, Appendable out) throws IOException {
+        List<String> contents = extractor.getPageContent(page);
+        if (contents == null) {
+            return 0;
+        }
+        int written = 0;
+        for (String content : contents) {
+            out.append(content).append('\n');
+            written += content.length() + 1;
+        }
+        return written;
+    }
+
+    /**
+     * 按页分段并行提取。调用线程沿用已打开的 reader，其余线程各自以只读方式打开同一个已解压的工作目录；
+     * 调用线程每完成一个分段，就把从头起连续完成的分段按顺序写入 out 并释放。
+     * 任一分段失败或调用线程被中断时，其余线程不再领取新分段，异常向上抛出；
+     * 超出耗时预算时停止领取，只输出从第一页起连续完成的部分。
+     */
+    private static void extractParallel(OFDReader reader, int pages, ExtractContext context, Appendable out,
+                                        ExecutorService executor, int workers) throws Exception {
+        int chunkPages = Math.max(MIN_CHUNK_PAGES,
+                (pages + workers * CHUNKS_PER_WORKER - 1) / (workers * CHUNKS_PER_WORKER));
+        Chunks chunks = new Chunks((pages + chunkPages - 1) / chunkPages, chunkPages, pages);
+        String workDir = reader.getWorkDir().toString();
+
+        List<Future<?>> futures = new ArrayList<>(workers - 1);
+        try {
+            for (int i = 1; i < workers; i++) {
+                try {
+                    futures.add(executor.submit(() -> {
+                        // 共用调用线程解压的工作目录，关闭时不删除
+                        try (OFDReader own = new OFDReader(workDir, false)) {
+                            chunks.extract(new ContentExtractor(own), context, null);
+                        }
+                        return null;
+                    }));
+                } catch (RejectedExecutionException e) {
+                    // 线程池已关闭，剩余分段由已启动的线程处理
+                    break;
+                }
+            }
+            chunks.extract(new ContentExtractor(reader), context, out);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("OFD 并行提取被中断");
+        } finally {
+            chunks.failed.set(true);
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        chunks.flush(out);
+    }
+
+    /**
+     * 分段领取与按序输出的共享状态。
+     */
+    private static final class Chunks {
+        private final int count;
+        private final int chunkPages;
+        private final int pages;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private final AtomicReferenceArray<String> texts;
+        // complete[i] 在 texts.set(i) 之前写入，由 texts 的 volatile 语义发布
+        private final boolean[] complete;
+        /**
+         * 下一个待输出的分段，只由调用线程访问
+         */
+        private int flushed;
+        /**
+         * 遇到未完成（超时截断）的分段后不再输出
+         */
+        private boolean ended;
+
+        private Chunks(int count, int chunkPages, int pages) {
+            this.count = count;
+            this.chunkPages = chunkPages;
+            this.pages = pages;
+            this.texts = new AtomicReferenceArray<>(count);
+            this.complete = new boolean[count];
+        }
+
+        /**
+         * 领取并提取分段直到领完、失败或超时；out 不为 null 时（调用线程）每段完成后按序输出。
+         */
+        private void extract(ContentExtractor extractor, ExtractContext context, Appendable out) throws IOException {
+            int chunk;
+            while (!failed.get() && !context.isTimeUp() && (chunk = next.getAndIncrement()) < count) {
+                try {
+                    StringBuilder sb = new StringBuilder();
+                    int last = Math.min(pages, (chunk + 1) * chunkPages);
+                    int page = chunk * chunkPages + 1;
+                    for (; page <= last && !context.isTimeUp(); page++) {
+                        appendPage(extractor, page, sb);
+                        context.pageDone();
+                    }
+                    complete[chunk] = page > last;
+                    texts.set(chunk, sb.toString());
+                } catch (IOException | RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+                if (out != null) {
+                    flush(out);
+                }
+            }
+            if (context.isTimeUp()) {
+                context.markTruncated();
+            }
+        }
+
+        private void flush(Appendable out) throws IOException {
+            String text;
+            while (!ended && flushed < count && (text = texts.get(flushed)) != null) {
+                out.append(text);
+                ended = !complete[flushed];
+                texts.set(flushed++, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package wiki.xyh.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 基于 OLE2（CFB 复合文档）目录的格式嗅探。DOC / XLS / PPT / MSG 共用同一个文件头魔数，
+ *               这里只读文件头、FAT 中目录链用到的几项以及目录扇区，按根存储下的流名区分：
+ *               WordDocument → DOC，Workbook / Book → XLS，PowerPoint Document → PPT，
+ *               __properties_version1.0 / __substg1.0_* → MSG。不解析任何流的内容，
+ *               只看根存储的直接子项（Word 中嵌入的 Excel 对象不会被误判为 XLS）。
+ */
+public final class Ole2Sniffer {
+
+    private static final long OLE2_SIGNATURE = 0xE11AB1A1E011CFD0L;
+
+    private static final int HEADER_SIZE = 512;
+    private static final int DIRECTORY_ENTRY_SIZE = 128;
+
+    /**
+     * 文件头中直接存放的 DIFAT 项数
+     */
+    private static final int HEADER_DIFAT_ENTRIES = 109;
+
+    private static final int END_OF_CHAIN = -2;
+
+    private static final int NO_STREAM = -1;
+
+    /**
+     * 目录链最多读取的扇区数，防止损坏文件的循环链
+     */
+    private static final int MAX_DIRECTORY_SECTORS = 1024;
+
+    /**
+     * 根存储下最多遍历的子项数
+     */
+    private static final int MAX_ROOT_CHILDREN = 4096;
+
+    private static final int TYPE_STORAGE = 1;
+    private static final int TYPE_STREAM = 2;
+
+    private static final String WORD_DOCUMENT = "WordDocument";
+    private static final String WORKBOOK = "Workbook";
+    private static final String BOOK = "Book";
+    private static final String POWERPOINT_DOCUMENT = "PowerPoint Document";
+    private static final String MSG_PROPERTIES = "__properties_version1.0";
+    private static final String MSG_SUBSTORAGE_PREFIX = "__substg1.0_";
+
+    // 根存储下发现的特征流
+    private static final int F_WORD = 1;
+    private static final int F_WORKBOOK = 1 << 1;
+    private static final int F_POWERPOINT = 1 << 2;
+    private static final int F_MSG = 1 << 3;
+
+    private Ole2Sniffer() {
+    }
+
+    /**
+     * 嗅探 OLE2 复合文档的具体格式。
+     *
+     * @param buf 文件内容，从 position 处开始是 OLE2 文件头；不改变 position
+     * @return DOC / XLS / PPT / MSG，无法识别或目录损坏时返回 UNKNOWN
+     */
+    public static FileTypeDetector.FileType sniff(ByteBuffer buf) {
+        int flags;
+        try {
+            flags = rootStreams(buf);
+        } catch (RuntimeException e) {
+            // 截断或损坏的文件：偏移越界
+            return FileTypeDetector.FileType.UNKNOWN;
+        }
+        if ((flags & F_WORD) != 0) {
+            return FileTypeDetector.FileType.DOC;
+        }
+        if ((flags & F_WORKBOOK) != 0) {
+            return FileTypeDetector.FileType.XLS;
+        }
+        if ((flags & F_POWERPOINT) != 0) {
+            return FileTypeDetector.FileType.PPT;
+        }
+        if ((flags & F_MSG) != 0) {
+            return FileTypeDetector.FileType.MSG;
+        }
+        return FileTypeDetector.FileType.UNKNOWN;
+    }
+
+    public static FileTypeDetector.FileType sniff(byte[] bytes) {
+        return bytes == null ? FileTypeDetector.FileType.UNKNOWN : sniff(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 遍历根存储的子项（目录项以红黑树组织，左右兄弟指针遍历即可），返回特征位。
+     */
+    private static int rootStreams(ByteBuffer in) {
+        int base = in.position();
+        ByteBuffer buf = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.limit() - base < HEADER_SIZE || buf.getLong(base) != OLE2_SIGNATURE) {
+            return 0;
+        }
+        int shift = buf.getShort(base + 30) & 0xFFFF;
+        if (shift != 9 && shift != 12) {
+            return 0;
+        }
+        Layout layout = new Layout(buf, base, 1 << shift);
+
+        // 目录链上的扇区号，按目录项编号随机访问
+        int[] chain = new int[16];
+        int chainLength = 0;
+        int sector = buf.getInt(base + 48);
+        while (sector >= 0 && chainLength < MAX_DIRECTORY_SECTORS) {
+            if (chainLength == chain.length) {
+                chain = Arrays.copyOf(chain, chainLength * 2);
+            }
+            chain[chainLength++] = sector;
+            sector = layout.nextSector(sector);
+        }
+        if (chainLength == 0) {
+            return 0;
+        }
+        int entriesPerSector = layout.sectorSize / DIRECTORY_ENTRY_SIZE;
+        int entryCount = chainLength * entriesPerSector;
+
+        // 根目录项（编号 0）的子节点
+        int rootChild = buf.getInt(layout.entryOffset(chain, 0, entriesPerSector) + 76);
+
+        int flags = 0;
+        int[] stack = new int[64];
+        int top = 0;
+        int visited = 0;
+        if (rootChild >= 0 && rootChild < entryCount) {
+            stack[top++] = rootChild;
+        }
+        while (top > 0 && visited < MAX_ROOT_CHILDREN) {
+            int did = stack[--top];
+            visited++;
+            int offset = layout.entryOffset(chain, did, entriesPerSector);
+            int type = buf.get(offset + 66);
+            if (type == TYPE_STREAM || type == TYPE_STORAGE) {
+                flags |= classify(buf, offset);
+            }
+            // 左右兄弟
+            for (int field = 68; field <= 72; field += 4) {
+                int sibling = buf.getInt(offset + field);
+                if (sibling != NO_STREAM && sibling >= 0 && sibling < entryCount) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = sibling;
+                }
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * 按目录项名称（UTF-16LE）归类，不构造字符串。
+     */
+    private static int classify(ByteBuffer buf, int offset) {
+        int nameBytes = buf.getShort(offset + 64) & 0xFFFF;
+        int nameChars = Math.max(0, Math.min(32, nameBytes / 2) - 1);
+        if (nameEquals(buf, offset, nameChars, WORD_DOCUMENT)) {
+            return F_WORD;
+        }
+        if (nameEquals(buf, offset, nameChars, WORKBOOK) || nameEquals(buf, offset, nameChars, BOOK)) {
+            return F_WORKBOOK;
+        }
+        if (nameEquals(buf, offset, nameChars, POWERPOINT_DOCUMENT)) {
+            return F_POWERPOINT;
+        }
+        if (nameEquals(buf, offset, nameChars, MSG_PROPERTIES)
+                || namePrefix(buf, offset, nameChars, MSG_SUBSTORAGE_PREFIX)) {
+            return F_MSG;
+        }
+        return 0;
+    }
+
+    private static boolean nameEquals(ByteBuffer buf, int offset, int nameChars, String expected) {
+        return nameChars == expected.length() && namePrefix(buf, offset, nameChars, expected);
+    }
+
+    private static boolean namePrefix(ByteBuffer buf, int offset, int nameChars, String prefix) {
+        if (nameChars < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf.getChar(offset + i * 2) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 扇区寻址：扇区 n 位于 (n + 1) * sectorSize，FAT 扇区号来自文件头的 DIFAT 及 DIFAT 扇区链。
+     */
+    private static final class Layout {
+        private final ByteBuffer buf;
+        private final int base;
+        private final int sectorSize;
+        private final int entriesPerFatSector;
+
+        private Layout(ByteBuffer buf, int base, int sectorSize) {
+            this.buf = buf;
+            this.base = base;
+            this.sectorSize = sectorSize;
+            this.entriesPerFatSector = sectorSize / 4;
+        }
+
+        private int sectorOffset(int sector) {
+            long offset = base + (long) (sector + 1) * sectorSize;
+            if (offset + sectorSize > buf.limit()) {
+                throw new IndexOutOfBoundsException("扇区越界: " + sector);
+            }
+            return (int) offset;
+        }
+
+        private int nextSector(int sector) {
+            int fatSector = fatSector(sector / entriesPerFatSector);
+            if (fatSector < 0) {
+                return END_OF_CHAIN;
+            }
+            return buf.getInt(sectorOffset(fatSector) + (sector % entriesPerFatSector) * 4);
+        }
+
+        /**
+         * 第 index 个 FAT 扇区的扇区号。
+         */
+        private int fatSector(int index) {
+            if (index < HEADER_DIFAT_ENTRIES) {
+                return buf.getInt(base + 76 + index * 4);
+            }
+            // 每个 DIFAT 扇区存放 entriesPerFatSector - 1 项，最后 4 字节指向下一个 DIFAT 扇区
+            int remaining = index - HEADER_DIFAT_ENTRIES;
+            int perDifat = entriesPerFatSector - 1;
+            int difat = buf.getInt(base + 68);
+            for (int hops = remaining / perDifat; hops > 0 && difat >= 0; hops--) {
+                difat = buf.getInt(sectorOffset(difat) + perDifat * 4);
+            }
+            return difat < 0 ? END_OF_CHAIN : buf.getInt(sectorOffset(difat) + (remaining % perDifat) * 4);
+        }
+
+        private int entryOffset(int[] chain, int did, int entriesPerSector) {
+            return sectorOffset(chain[did / entriesPerSector]) + (did % entriesPerSector) * DIRECTORY_ENTRY_SIZE;
+        }
+    }
+}
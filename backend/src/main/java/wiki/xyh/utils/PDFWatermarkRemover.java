@@ -1,21 +1,121 @@
 package wiki.xyh.utils;
 
-import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PDFWatermarkRemover extends PDFTextStripper {
 
+    /**
+     * 并行模式下每个分段的最少页数，页数太少时分段的调度开销大于收益
+     */
+    private static final int MIN_CHUNK_PAGES = 16;
+
+    /**
+     * 每个线程平均分到的分段数。分段比线程多，耗时不均的页面（扫描件、复杂矢量图）能被其他线程分担
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private static volatile ExecutorService parallelExecutor;
+    private static volatile int parallelism = 1;
+    private static volatile int parallelPageThreshold = 0;
+
+    private static volatile boolean removeRepeatedLines = true;
+
+    /**
+     * 同一行内两个字形的间距超过空格宽度的该倍数时补一个空格（与 PDFTextStripper 默认的 spacingTolerance 一致）
+     */
+    private static final float SPACING_TOLERANCE = 0.5f;
+
+    /**
+     * 页内每执行这么多个内容流操作符检查一次解析期限（2 的幂，取模用位运算）
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
     private final StringBuilder extractedText = new StringBuilder();
-    private List<String> currentLine = new ArrayList<>();
+
+    /**
+     * 当前行的字符，逐字形追加，输出后清空复用
+     */
+    private final StringBuilder currentLine = new StringBuilder(256);
     private float previousY = -1;
+    private float previousEndX;
+    private float lineX;
+    private float lineY;
+    private final ExtractContext context;
+
+    /**
+     * 跨页重复行（水印、页眉页脚）检测，关闭时为 null
+     */
+    private final RepeatedLineDetector repeats;
+
+    /**
+     * 预算用尽后其余页面不再解析；页内超时时当前页剩余的操作符也不再执行
+     */
+    private boolean stopped;
+
+    private int operators;
 
     public PDFWatermarkRemover() throws IOException {
+        this(new ExtractContext());
+    }
+
+    public PDFWatermarkRemover(ExtractContext context) throws IOException {
+        this.context = context;
+        this.repeats = removeRepeatedLines ? new RepeatedLineDetector() : null;
+    }
+
+    @Override
+    public void processPage(PDPage page) throws IOException {
+        if (!stopped) {
+            super.processPage(page);
+        }
+    }
+
+    /**
+     * 页内检查点：单页的内容流可能极大（矢量图、逐字定位的文本、层层嵌套的表单 XObject），
+     * 只在页尾检查期限时一页就可能耗尽全部时间。超时后跳过当前页剩余的操作符，保留已提取的文本。
+     */
+    @Override
+    protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+        if (stopped) {
+            return;
+        }
+        if ((++operators & (DEADLINE_CHECK_INTERVAL - 1)) == 0 && context.isTimeUp()) {
+            stopped = true;
+            context.markTruncated();
+            return;
+        }
+        super.processOperator(operator, operands);
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        // 每页最后一行在页尾输出，不与下一页的第一行拼接
+        appendCurrentLine();
+        previousY = -1;
+        if (repeats != null) {
+            repeats.pageDone();
+        }
+        context.pageDone();
+        if (context.shouldStop(extractedText.length())) {
+            stopped = true;
+        }
     }
 
     @Override
@@ -26,33 +126,113 @@ public class PDFWatermarkRemover extends PDFTextStripper {
             return;
         }
 
+        String unicode = text.getUnicode();
+        if (unicode == null || unicode.isEmpty()) {
+            return;
+        }
+
         // 检查 Y 位置是否改变（新行的指示），保留换行
         if (previousY != -1 && Math.abs(text.getY() - previousY) > 5) {
             appendCurrentLine();
         }
         previousY = text.getY();
 
-        // 追加文本到当前行
-        currentLine.add(text.getUnicode());
+        // 追加文本到当前行；字形间距明显大于空格宽度时补一个空格（PDF 中常省略空格字形，只靠坐标留白）
+        float x = text.getXDirAdj();
+        int length = currentLine.length();
+        if (length == 0) {
+            lineX = x;
+            lineY = text.getYDirAdj();
+        } else if (x - previousEndX > spaceWidth(text) * SPACING_TOLERANCE
+                && !Character.isWhitespace(currentLine.charAt(length - 1))
+                && !Character.isWhitespace(unicode.charAt(0))) {
+            currentLine.append(' ');
+        }
+        currentLine.append(unicode);
+        previousEndX = x + text.getWidthDirAdj();
+    }
+
+    private static float spaceWidth(TextPosition text) {
+        float width = text.getWidthOfSpace();
+        return width > 0 ? width : text.getWidthDirAdj();
+    }
+
+    /**
+     * 设置按页分段并行提取使用的线程池。
+     *
+     * @param executor      线程池，传 null 恢复单线程
+     * @param parallelism   同时处理的分段数（含调用线程），小于等于 1 表示不并行
+     * @param pageThreshold 页数达到该值才并行，小于等于 0 表示不并行
+     */
+    public static void setParallelExecutor(ExecutorService executor, int parallelism, int pageThreshold) {
+        PDFWatermarkRemover.parallelExecutor = executor;
+        PDFWatermarkRemover.parallelism = parallelism;
+        PDFWatermarkRemover.parallelPageThreshold = pageThreshold;
+    }
+
+    /**
+     * 开启或关闭跨页重复行（水印、页眉页脚）去除。
+     */
+    public static void setRemoveRepeatedLines(boolean remove) {
+        removeRepeatedLines = remove;
     }
 
     // 将当前行添加到提取文本并清空当前行
     private void appendCurrentLine() {
-        if (!currentLine.isEmpty()) {
-            String line = String.join("", currentLine);  // 合并当前行的字符
-            if (line.trim().length() > 1) {  // 过滤掉只有一个字符的行
-                extractedText.append(line).append("\n");
+        int length = currentLine.length();
+        if (length == 0) {
+            return;
+        }
+        // 等价于 trim()，不创建字符串
+        int from = 0;
+        int to = length;
+        while (from < to && currentLine.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && currentLine.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (to - from > 1) {  // 过滤掉只有一个字符的行
+            int start = extractedText.length();
+            extractedText.append(currentLine).append('\n');
+            if (repeats != null) {
+                long hash = RepeatedLineDetector.hash(currentLine, from, to, lineX, lineY);
+                repeats.record(start, extractedText.length(), hash, getCurrentPageNo());
             }
-            currentLine.clear();
         }
+        currentLine.setLength(0);
+    }
+
+    /**
+     * 提取结果，已剔除跨页重复行。
+     */
+    private String result() {
+        return repeats == null ? extractedText.toString() : repeats.filter(extractedText);
     }
 
     public static String removeWatermarkBasedOnAngle(byte[] pdfBytes) throws Exception {
         if (pdfBytes == null || pdfBytes.length == 0) {
             throw new IOException("输入的 PDF 数据为空");
         }
+        return removeWatermarkBasedOnAngle(ExtractSource.of(pdfBytes));
+    }
+
+    /**
+     * 从提取源解析 PDF：落盘文件直接交给 PDFBox 随机访问读取，不再整体读入堆内存。
+     */
+    public static String removeWatermarkBasedOnAngle(ExtractSource source) throws Exception {
+        return removeWatermarkBasedOnAngle(source, new ExtractContext());
+    }
+
+    /**
+     * 同上，逐页向 context 汇报进度。
+     */
+    public static String removeWatermarkBasedOnAngle(ExtractSource source, ExtractContext context) throws Exception {
+        if (source == null || source.size() == 0) {
+            throw new IOException("输入的 PDF 数据为空");
+        }
 
-        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+        try (PDDocument document = PdfLoader.load(source)) {
             if (document == null) {
                 throw new IOException("无法加载 PDF 文档，可能格式不正确");
             }
@@ -61,12 +241,23 @@ public class PDFWatermarkRemover extends PDFTextStripper {
                 throw new IOException("PDF 页数为 0，可能为空文档");
             }
 
-            PDFWatermarkRemover remover = new PDFWatermarkRemover();
+            // 预算限制页数时只处理前 pages 页
+            int pages = context.pageLimit(document.getNumberOfPages());
+            context.setTotalPages(pages);
+            ExecutorService executor = parallelExecutor;
+            int workers = Math.min(parallelism, (pages + MIN_CHUNK_PAGES - 1) / MIN_CHUNK_PAGES);
+            // 限制字符数的预览请求通常读几页就够了，单线程顺序读取能最早停下
+            if (executor != null && workers > 1 && parallelPageThreshold > 0 && pages >= parallelPageThreshold
+                    && !context.getBudget().hasCharLimit()) {
+                return extractParallel(source, document, pages, context, executor, workers).trim();
+            }
+
+            PDFWatermarkRemover remover = new PDFWatermarkRemover(context);
             remover.setStartPage(1);
-            remover.setEndPage(document.getNumberOfPages());
+            remover.setEndPage(pages);
 
             remover.getText(document);
-            return remover.extractedText.toString().trim();
+            return remover.result().trim();
 
         } catch (IOException e) {
             // 将 PDFBox 抛出的错误转成清晰异常往上传
@@ -77,4 +268,93 @@ public class PDFWatermarkRemover extends PDFTextStripper {
         }
     }
 
+    /**
+     * 按页分段并行提取。页码区间切成若干连续分段，workers 个线程（调用线程也参与）依次领取分段；
+     * PDDocument 不是线程安全的，除调用线程沿用已打开的文档外，每个线程各自打开一个文档句柄，
+     * 每个分段用独立的 PDFWatermarkRemover 提取（跨页重复行在分段内检测），最后按页码顺序拼接。
+     * 任一分段失败或调用线程被中断时，其余线程不再领取新分段，异常向上抛出；
+     * 超出耗时预算时停止领取，只拼接从第一页起连续完成的部分。
+     */
+    private static String extractParallel(ExtractSource source, PDDocument document, int pages, ExtractContext context,
+                                          ExecutorService executor, int workers) throws Exception {
+        int chunkPages = Math.max(MIN_CHUNK_PAGES, (pages + workers * CHUNKS_PER_WORKER - 1) / (workers * CHUNKS_PER_WORKER));
+        int chunks = (pages + chunkPages - 1) / chunkPages;
+        String[] texts = new String[chunks];
+        boolean[] complete = new boolean[chunks];
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        List<Future<?>> futures = new ArrayList<>(workers - 1);
+        try {
+            for (int i = 1; i < workers; i++) {
+                try {
+                    futures.add(executor.submit(() -> {
+                        PDDocument own;
+                        try {
+                            own = PdfLoader.load(source);
+                        } catch (IOException e) {
+                            // 该线程不领取分段，由其余线程完成
+                            return null;
+                        }
+                        try {
+                            extractChunks(own, pages, context, texts, complete, chunkPages, nextChunk, failed);
+                        } finally {
+                            own.close();
+                        }
+                        return null;
+                    }));
+                } catch (RejectedExecutionException e) {
+                    // 线程池已关闭，剩余分段由已启动的线程处理
+                    break;
+                }
+            }
+            extractChunks(document, pages, context, texts, complete, chunkPages, nextChunk, failed);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PDF 并行提取被中断");
+        } finally {
+            failed.set(true);
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < chunks && texts[i] != null; i++) {
+            out.append(texts[i]);
+            if (!complete[i]) {
+                break;
+            }
+        }
+        return out.toString();
+    }
+
+    private static void extractChunks(PDDocument document, int pages, ExtractContext context, String[] texts,
+                                      boolean[] complete, int chunkPages, AtomicInteger nextChunk,
+                                      AtomicBoolean failed) throws IOException {
+        int chunk;
+        while (!failed.get() && !context.isTimeUp() && (chunk = nextChunk.getAndIncrement()) < texts.length) {
+            try {
+                PDFWatermarkRemover remover = new PDFWatermarkRemover(context);
+                remover.setStartPage(chunk * chunkPages + 1);
+                remover.setEndPage(Math.min(pages, (chunk + 1) * chunkPages));
+                remover.getText(document);
+                complete[chunk] = !remover.stopped;
+                texts[chunk] = remover.result();
+            } catch (IOException | RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+        if (context.isTimeUp()) {
+            context.markTruncated();
+        }
+    }
+
 }
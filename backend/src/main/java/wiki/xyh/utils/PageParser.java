@@ -8,11 +8,61 @@ import java.net.URL;
 
 public class PageParser {
 
+    /**
+     * 渲染用的 WebClient 池，由 WebClientPoolConfig 按配置设置；未设置时（命令行、基准测试）首次使用时创建默认池
+     */
+    private static volatile WebClientPool clientPool;
 
+    public static void setClientPool(WebClientPool pool) {
+        clientPool = pool;
+    }
+
+    private static WebClientPool clientPool() {
+        WebClientPool pool = clientPool;
+        if (pool == null) {
+            synchronized (PageParser.class) {
+                pool = clientPool;
+                if (pool == null) {
+                    pool = new WebClientPool(Runtime.getRuntime().availableProcessors(), 200,
+                            30_000L, 10 * 60_000L, 0);
+                    clientPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 用池中的 WebClient 渲染 HTML 并返回规范化后的文本。文档只在借用期间存活，
+     * 归还时 WebClient 会被重置，因此这里直接返回文本而不是 HtmlPage。
+     *
+     * @param source  HTML 字节
+     * @param charset 编码
+     * @return 规范化文本
+     */
+    public static String renderText(byte[] source, String charset) throws IOException {
+        try (WebClientPool.Lease lease = clientPool().lease()) {
+            try {
+                String htmlString = new String(source, charset);
+                StringWebResponse swr = new StringWebResponse(htmlString, new URL("http://localhost/"));
+                HtmlPage page = (HtmlPage) new DefaultPageCreator().createPage(swr, lease.getClient().getCurrentWindow());
+                return page.asNormalizedText();
+            } catch (IOException | RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+
+    /**
+     * 新建 WebClient 解析 HTML，返回前 WebClient 已关闭：返回的页面只能读取 DOM 与文本，
+     * 不能再执行脚本、导航或打开窗口；需要可交互的页面时使用 {@link #htmlParser(WebClient, String, String)}
+     * 自行管理 WebClient 的生命周期。
+     */
     public static HtmlPage htmlParser(String source){
-        WebClient client = new WebClient(BrowserVersion.BEST_SUPPORTED);
         HtmlPage htmlpage = null;
-        try {
+        try (final WebClient client = new WebClient(BrowserVersion.BEST_SUPPORTED)) {
             StringWebResponse swr = new StringWebResponse(source, new URL("http://www.baidu.com/"));
             DefaultPageCreator dpc = new DefaultPageCreator();
             htmlpage = (HtmlPage)dpc.createPage(swr, client.getCurrentWindow());
@@ -22,6 +72,9 @@ public class PageParser {
         return htmlpage;
     }
 
+    /**
+     * 每次新建并关闭一个 WebClient（返回的页面同样只能读取 DOM 与文本），只需要文本时使用 {@link #renderText(byte[], String)}。
+     */
     public static HtmlPage htmlParser(byte[] source, String charset) {
         HtmlPage htmlpage = null;
 
@@ -46,10 +99,14 @@ public class PageParser {
     }
 
 
+    /**
+     * 新建 WebClient 解析 HTML，返回前 WebClient 已关闭：返回的页面只能读取 DOM 与文本，
+     * 不能再执行脚本、导航或打开窗口；需要可交互的页面时使用 {@link #htmlParser(WebClient, String, String)}
+     * 自行管理 WebClient 的生命周期。
+     */
     public static HtmlPage htmlParser(String source, String url){
-        WebClient client = new WebClient(BrowserVersion.BEST_SUPPORTED);
         HtmlPage htmlpage = null;
-        try {
+        try (final WebClient client = new WebClient(BrowserVersion.BEST_SUPPORTED)) {
             StringWebResponse swr = new StringWebResponse(source, new URL(url));
             DefaultPageCreator dpc = new DefaultPageCreator();
             htmlpage = (HtmlPage)dpc.createPage(swr, client.getCurrentWindow());
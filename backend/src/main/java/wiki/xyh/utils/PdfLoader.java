@@ -0,0 +1,183 @@
+package wiki.xyh.utils;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: PDF 文档加载，限制单个文档占用的堆内存。
+ *               <ul>
+ *                   <li>落盘文件以随机访问方式读取（PDFBox 只缓冲少量页），不整体读入堆；</li>
+ *                   <li>PDFBox 的流缓存按 MemoryUsageSetting 混合模式创建：堆内最多 maxMainMemoryBytes，
+ *                       超出部分写入 scratchDir 下的临时文件，文档关闭时删除；</li>
+ *                   <li>默认的 ResourceCache 以软引用缓存整份文档的字体、表单 / 图片 XObject、图案等，
+ *                       大文档在堆紧张前不会释放。这里只缓存最近使用的少量字体与颜色空间（跨页复用、解析代价高，
+ *                       仍用软引用，堆紧张时可提前回收），XObject、图案、着色、图形状态等随页面对象一起在换页后释放。</li>
+ *               </ul>
+ *               文档不是线程安全的，缓存也不做同步；并行提取时每个线程各自加载一个文档。
+ */
+public final class PdfLoader {
+
+    /**
+     * 每个文档缓存的字体 / 颜色空间数上限
+     */
+    private static final int MAX_CACHED_RESOURCES = 16;
+
+    private static volatile long maxMainMemoryBytes = 16L * 1024 * 1024;
+
+    private static volatile File scratchDir;
+
+    private PdfLoader() {
+    }
+
+    /**
+     * 设置单个文档的堆内流缓存上限与溢出临时文件目录。
+     *
+     * @param maxMainMemoryBytes 堆内流缓存上限（字节），小于等于 0 表示只用临时文件
+     * @param scratchDir         临时文件目录，为 null 时使用 java.io.tmpdir
+     */
+    public static void setMemoryBudget(long maxMainMemoryBytes, File scratchDir) {
+        PdfLoader.maxMainMemoryBytes = maxMainMemoryBytes;
+        PdfLoader.scratchDir = scratchDir;
+    }
+
+    /**
+     * 按默认堆内预算加载。
+     */
+    public static PDDocument load(ExtractSource source) throws IOException {
+        return load(source, maxMainMemoryBytes);
+    }
+
+    /**
+     * 加载 PDF，调用方负责关闭文档。
+     *
+     * @param source             提取源
+     * @param maxMainMemoryBytes 本文档堆内流缓存上限（字节），小于等于 0 表示只用临时文件
+     */
+    public static PDDocument load(ExtractSource source, long maxMainMemoryBytes) throws IOException {
+        RandomAccessStreamCache.StreamCacheCreateFunction streamCache = streamCache(maxMainMemoryBytes);
+        PDDocument document = source.isFile()
+                ? Loader.loadPDF(source.file(), "", null, null, streamCache)
+                : Loader.loadPDF(source.bytes(), "", null, null, streamCache);
+        document.setResourceCache(new RecentResourceCache());
+        return document;
+    }
+
+    private static RandomAccessStreamCache.StreamCacheCreateFunction streamCache(long maxMainMemoryBytes) {
+        MemoryUsageSetting setting = maxMainMemoryBytes > 0
+                ? MemoryUsageSetting.setupMixed(maxMainMemoryBytes)
+                : MemoryUsageSetting.setupTempFileOnly();
+        File dir = scratchDir;
+        if (dir != null) {
+            setting.setTempDir(dir);
+        }
+        return setting.streamCache;
+    }
+
+    /**
+     * 只缓存最近使用的字体与颜色空间（按访问顺序淘汰），其余资源不缓存。
+     */
+    private static final class RecentResourceCache implements ResourceCache {
+
+        private final Map<COSObject, SoftReference<Object>> resources =
+                new LinkedHashMap<COSObject, SoftReference<Object>>(MAX_CACHED_RESOURCES * 2, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<COSObject, SoftReference<Object>> eldest) {
+                        return size() > MAX_CACHED_RESOURCES;
+                    }
+                };
+
+        private <T> T get(COSObject indirect, Class<T> type) {
+            SoftReference<Object> ref = resources.get(indirect);
+            Object resource = ref == null ? null : ref.get();
+            return type.isInstance(resource) ? type.cast(resource) : null;
+        }
+
+        private void cache(COSObject indirect, Object resource) {
+            resources.put(indirect, new SoftReference<>(resource));
+        }
+
+        @Override
+        public PDFont getFont(COSObject indirect) {
+            return get(indirect, PDFont.class);
+        }
+
+        @Override
+        public void put(COSObject indirect, PDFont font) {
+            cache(indirect, font);
+        }
+
+        @Override
+        public PDColorSpace getColorSpace(COSObject indirect) {
+            return get(indirect, PDColorSpace.class);
+        }
+
+        @Override
+        public void put(COSObject indirect, PDColorSpace colorSpace) {
+            cache(indirect, colorSpace);
+        }
+
+        @Override
+        public PDExtendedGraphicsState getExtGState(COSObject indirect) {
+            return null;
+        }
+
+        @Override
+        public void put(COSObject indirect, PDExtendedGraphicsState extGState) {
+        }
+
+        @Override
+        public PDShading getShading(COSObject indirect) {
+            return null;
+        }
+
+        @Override
+        public void put(COSObject indirect, PDShading shading) {
+        }
+
+        @Override
+        public PDAbstractPattern getPattern(COSObject indirect) {
+            return null;
+        }
+
+        @Override
+        public void put(COSObject indirect, PDAbstractPattern pattern) {
+        }
+
+        @Override
+        public PDPropertyList getProperties(COSObject indirect) {
+            return null;
+        }
+
+        @Override
+        public void put(COSObject indirect, PDPropertyList propertyList) {
+        }
+
+        @Override
+        public PDXObject getXObject(COSObject indirect) {
+            return null;
+        }
+
+        @Override
+        public void put(COSObject indirect, PDXObject xobject) {
+        }
+    }
+}
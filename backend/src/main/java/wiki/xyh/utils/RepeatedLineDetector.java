@@ -0,0 +1,146 @@
+package wiki.xyh.utils;
+
+import java.util.Arrays;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 跨页重复行检测，用于去除水印、页眉页脚等在多数页面同一位置重复出现的文字。
+ *               每输出一行只记录该行在输出中的起止偏移与一个 64 位哈希（行文本 + 量化后的起点坐标），
+ *               哈希表按哈希统计出现过的页数，不保留字形与行文本副本；
+ *               提取结束时剔除出现页数达到阈值的行。
+ */
+final class RepeatedLineDetector {
+
+    /**
+     * 坐标量化网格（pt），同一水印在各页的坐标误差在此范围内视为同一位置
+     */
+    private static final float GRID = 4f;
+
+    /**
+     * 至少在这么多页重复才视为水印，页数更少的文档不做检测
+     */
+    private static final int MIN_REPEAT_PAGES = 3;
+
+    /**
+     * 出现页数占已处理页数的比例达到该值才视为水印
+     */
+    private static final double MIN_REPEAT_RATIO = 0.6;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 开放寻址哈希表：行哈希 -> 最近出现的页码、出现页数；键 0 表示空槽
+    private long[] keys = new long[1024];
+    private int[] lastPages = new int[1024];
+    private int[] pageCounts = new int[1024];
+    private int size;
+    private int maxPageCount;
+
+    // 已输出的行：起止偏移与哈希
+    private int[] starts = new int[1024];
+    private int[] ends = new int[1024];
+    private long[] hashes = new long[1024];
+    private int lines;
+
+    private int pages;
+
+    /**
+     * 计算行的哈希：trim 后的行文本与量化后的起点坐标。
+     */
+    static long hash(CharSequence line, int from, int to, float x, float y) {
+        long h = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            h = (h ^ line.charAt(i)) * FNV_PRIME;
+        }
+        h = (h ^ Math.round(x / GRID)) * FNV_PRIME;
+        h = (h ^ Math.round(y / GRID)) * FNV_PRIME;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 记录一行输出。
+     *
+     * @param start 行在输出中的起始偏移
+     * @param end   行在输出中的结束偏移（含换行符）
+     * @param hash  行哈希
+     * @param page  页码
+     */
+    void record(int start, int end, long hash, int page) {
+        int slot = slot(hash);
+        if (keys[slot] == 0) {
+            keys[slot] = hash;
+            size++;
+        }
+        if (lastPages[slot] != page) {
+            lastPages[slot] = page;
+            maxPageCount = Math.max(maxPageCount, ++pageCounts[slot]);
+        }
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+
+        if (lines == starts.length) {
+            starts = Arrays.copyOf(starts, lines * 2);
+            ends = Arrays.copyOf(ends, lines * 2);
+            hashes = Arrays.copyOf(hashes, lines * 2);
+        }
+        starts[lines] = start;
+        ends[lines] = end;
+        hashes[lines] = hash;
+        lines++;
+    }
+
+    /**
+     * 完成一页。
+     */
+    void pageDone() {
+        pages++;
+    }
+
+    /**
+     * 剔除重复行后的文本；没有达到阈值的行时直接返回原文。
+     */
+    String filter(StringBuilder text) {
+        int threshold = Math.max(MIN_REPEAT_PAGES, (int) Math.ceil(pages * MIN_REPEAT_RATIO));
+        if (maxPageCount < threshold) {
+            return text.toString();
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        int copied = 0;
+        for (int i = 0; i < lines; i++) {
+            if (pageCounts[slot(hashes[i])] >= threshold) {
+                out.append(text, copied, starts[i]);
+                copied = ends[i];
+            }
+        }
+        out.append(text, copied, text.length());
+        return out.toString();
+    }
+
+    private int slot(long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldLastPages = lastPages;
+        int[] oldPageCounts = pageCounts;
+        keys = new long[oldKeys.length * 2];
+        lastPages = new int[keys.length];
+        pageCounts = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                lastPages[slot] = oldLastPages[i];
+                pageCounts[slot] = oldPageCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package wiki.xyh.utils;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 表格提取的行数 / 单元格数上限，按整个工作簿（所有工作表合计）计算，
+ *               达到上限后停止读取并返回已提取的内容，避免超大表格把输出撑爆内存。
+ */
+public final class SheetLimits {
+
+    public static final int DEFAULT_MAX_ROWS = 1_000_000;
+
+    public static final int DEFAULT_MAX_CELLS = 10_000_000;
+
+    /**
+     * 不限制
+     */
+    public static final SheetLimits UNLIMITED = new SheetLimits(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static volatile SheetLimits defaultLimits = new SheetLimits(DEFAULT_MAX_ROWS, DEFAULT_MAX_CELLS);
+
+    private final int maxRows;
+    private final int maxCells;
+
+    private SheetLimits(int maxRows, int maxCells) {
+        this.maxRows = maxRows;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * @param maxRows  最大行数，小于等于 0 表示不限制
+     * @param maxCells 最大单元格数，小于等于 0 表示不限制
+     */
+    public static SheetLimits of(int maxRows, int maxCells) {
+        return new SheetLimits(maxRows > 0 ? maxRows : Integer.MAX_VALUE, maxCells > 0 ? maxCells : Integer.MAX_VALUE);
+    }
+
+    /**
+     * 设置默认上限，GetTypeAndContent 的表格解析使用该上限。
+     */
+    public static void setDefault(SheetLimits limits) {
+        defaultLimits = limits == null ? UNLIMITED : limits;
+    }
+
+    public static SheetLimits getDefault() {
+        return defaultLimits;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public int getMaxCells() {
+        return maxCells;
+    }
+}
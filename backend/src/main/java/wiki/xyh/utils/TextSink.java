@@ -0,0 +1,109 @@
+package wiki.xyh.utils;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 流式解析器的文本输出端。解析器边读边写，TextSink 负责空白规整：
+ *               连续空白合并为一个空格，连续换行合并为一个换行，首尾空白丢弃，
+ *               因此解析器不需要先拼出完整文本再做正则清理。
+ */
+public final class TextSink {
+
+    private static final int NONE = 0;
+    private static final int SPACE = 1;
+    private static final int NEWLINE = 2;
+
+    private final StringBuilder out;
+
+    /**
+     * 尚未输出的分隔符：NONE / SPACE / NEWLINE，遇到下一个可见字符时才真正写出
+     */
+    private int pending = NONE;
+
+    public TextSink() {
+        this(256);
+    }
+
+    public TextSink(int initialCapacity) {
+        this.out = new StringBuilder(initialCapacity);
+    }
+
+    /**
+     * 写入一个字符，空白字符按分隔符处理。
+     */
+    public void append(char c) {
+        if (c == '\n' || c == '\r') {
+            lineBreak();
+        } else if (Character.isWhitespace(c) || c == '\u00A0') {
+            space();
+        } else {
+            flushPending();
+            out.append(c);
+        }
+    }
+
+    /**
+     * 写入一个码位（实体解码得到的字符可能在 BMP 之外）。
+     */
+    public void appendCodePoint(int codePoint) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            append((char) codePoint);
+        } else {
+            flushPending();
+            out.appendCodePoint(codePoint);
+        }
+    }
+
+    public void append(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    /**
+     * 原样写入字符，不做空白合并（如 pre 中的内容）。
+     */
+    public void appendRaw(char c) {
+        flushPending();
+        out.append(c);
+    }
+
+    /**
+     * 词间分隔。已有待输出换行时不降级。
+     */
+    public void space() {
+        if (pending == NONE && out.length() > 0) {
+            pending = SPACE;
+        }
+    }
+
+    /**
+     * 段落分隔。
+     */
+    public void lineBreak() {
+        if (out.length() > 0) {
+            pending = NEWLINE;
+        }
+    }
+
+    private void flushPending() {
+        if (pending == SPACE) {
+            out.append(' ');
+        } else if (pending == NEWLINE) {
+            out.append('\n');
+        }
+        pending = NONE;
+    }
+
+    /**
+     * 已输出的字符数（不含尚未写出的分隔符）
+     */
+    public int length() {
+        return out.length();
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
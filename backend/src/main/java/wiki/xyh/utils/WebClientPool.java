@@ -0,0 +1,274 @@
+package wiki.xyh.utils;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.DefaultPageCreator;
+import com.gargoylesoftware.htmlunit.StringWebResponse;
+import com.gargoylesoftware.htmlunit.TopLevelWindow;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClientOptions;
+import com.gargoylesoftware.htmlunit.WebWindow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: HtmlUnit WebClient 池。WebClient 是项目里创建成本最高的对象（浏览器配置、JS 引擎、解析器），
+ *               池中的实例创建时即完成配置并渲染一个空白页预热，借出时独占、归还时重置
+ *               （清 Cookie / 缓存、停止后台 JS、关闭多余窗口、载入空白页释放上一篇文档），
+ *               使用次数达到上限、空闲过久或重置失败的实例直接关闭，由下一次借用按需重建。
+ */
+public final class WebClientPool implements Closeable {
+
+    private static final String BLANK_HTML = "<html><head></head><body></body></html>";
+
+    private final int maxSize;
+    private final int maxUses;
+    private final long leaseTimeoutMs;
+    private final long idleTimeoutMs;
+    private final boolean javaScriptEnabled;
+    private final boolean cssEnabled;
+
+    /**
+     * 控制同时存在（空闲 + 借出）的实例数
+     */
+    private final Semaphore permits;
+
+    /**
+     * 空闲实例，后进先出，最近用过的实例优先借出，久未使用的留在队尾等待淘汰
+     */
+    private final LinkedBlockingDeque<Entry> idle = new LinkedBlockingDeque<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * @param maxSize        最大实例数
+     * @param maxUses        单个实例的最大使用次数，达到后关闭重建，避免 JS 引擎等内部状态累积
+     * @param leaseTimeoutMs 借用等待超时（毫秒）
+     * @param idleTimeoutMs  空闲超时（毫秒），超时的实例在下次借用时关闭
+     * @param prewarm        启动时预先创建的实例数
+     */
+    public WebClientPool(int maxSize, int maxUses, long leaseTimeoutMs, long idleTimeoutMs, int prewarm) {
+        this(maxSize, maxUses, leaseTimeoutMs, idleTimeoutMs, prewarm, false, false);
+    }
+
+    /**
+     * 同上，指定是否执行页面脚本与加载样式。两者默认关闭，与原 readHTML 使用的
+     * PageParser.htmlParser(byte[], String) 的配置一致；依赖脚本生成内容的页面可开启 JS。
+     *
+     * @param javaScriptEnabled 是否执行页面脚本
+     * @param cssEnabled        是否加载样式（影响 display:none 等元素是否计入可见文本）
+     */
+    public WebClientPool(int maxSize, int maxUses, long leaseTimeoutMs, long idleTimeoutMs, int prewarm,
+                         boolean javaScriptEnabled, boolean cssEnabled) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxUses = Math.max(1, maxUses);
+        this.leaseTimeoutMs = leaseTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.javaScriptEnabled = javaScriptEnabled;
+        this.cssEnabled = cssEnabled;
+        this.permits = new Semaphore(this.maxSize, true);
+        for (int i = 0; i < Math.min(prewarm, this.maxSize); i++) {
+            idle.offerLast(newEntry());
+        }
+    }
+
+    /**
+     * 借出一个 WebClient，使用完毕后关闭 Lease 归还。
+     *
+     * @return 租约
+     * @throws IOException 池已关闭、等待超时或被中断
+     */
+    public Lease lease() throws IOException {
+        if (closed) {
+            throw new IOException("WebClient 池已关闭");
+        }
+        try {
+            if (!permits.tryAcquire(leaseTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("等待 WebClient 超时（" + leaseTimeoutMs + "ms），池大小 " + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 WebClient 被中断", e);
+        }
+        try {
+            Entry entry;
+            long now = System.currentTimeMillis();
+            while ((entry = idle.pollFirst()) != null) {
+                if (now - entry.lastReleased <= idleTimeoutMs) {
+                    break;
+                }
+                evict(entry);
+            }
+            if (entry == null) {
+                entry = newEntry();
+            }
+            entry.uses++;
+            return new Lease(entry);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Entry newEntry() {
+        WebClient client = new WebClient(BrowserVersion.BEST_SUPPORTED);
+        WebClientOptions options = client.getOptions();
+        options.setThrowExceptionOnScriptError(false);
+        options.setThrowExceptionOnFailingStatusCode(false);
+        options.setActiveXNative(false);
+        options.setCssEnabled(cssEnabled);
+        options.setJavaScriptEnabled(javaScriptEnabled);
+        options.setRedirectEnabled(false);
+        options.setDownloadImages(false);
+        try {
+            // 预热：走一遍页面创建流程，加载解析器相关的类与缓存
+            loadBlank(client);
+        } catch (IOException e) {
+            client.close();
+            throw new IllegalStateException("WebClient 初始化失败", e);
+        }
+        created.incrementAndGet();
+        return new Entry(client);
+    }
+
+    private static void loadBlank(WebClient client) throws IOException {
+        StringWebResponse blank = new StringWebResponse(BLANK_HTML, new URL("http://localhost/"));
+        new DefaultPageCreator().createPage(blank, client.getCurrentWindow());
+    }
+
+    /**
+     * 归还前重置，返回实例是否仍可复用。
+     */
+    private boolean reset(Entry entry) {
+        WebClient client = entry.client;
+        try {
+            List<TopLevelWindow> windows = new ArrayList<>(client.getTopLevelWindows());
+            WebWindow current = client.getCurrentWindow();
+            for (TopLevelWindow window : windows) {
+                if (window != current) {
+                    window.close();
+                }
+            }
+            if (current == null || current.isClosed()) {
+                return false;
+            }
+            current.getJobManager().removeAllJobs();
+            client.getCookieManager().clearCookies();
+            client.getCache().clear();
+            // 用空白页替换上一篇文档，空闲期间不持有其 DOM
+            loadBlank(client);
+            return client.getTopLevelWindows().size() == 1;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void release(Entry entry, boolean healthy) {
+        try {
+            if (!closed && healthy && entry.uses < maxUses && reset(entry)) {
+                entry.lastReleased = System.currentTimeMillis();
+                idle.offerFirst(entry);
+                if (closed && idle.remove(entry)) {
+                    // 归还过程中池被关闭
+                    evict(entry);
+                }
+            } else {
+                evict(entry);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evict(Entry entry) {
+        evicted.incrementAndGet();
+        try {
+            entry.client.close();
+        } catch (Exception ignored) {
+            // 关闭失败不影响池的状态
+        }
+    }
+
+    /**
+     * 关闭池中所有空闲实例，借出中的实例在归还时关闭。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            evict(entry);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getLeasedCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private static final class Entry {
+        private final WebClient client;
+        private int uses;
+        private long lastReleased = System.currentTimeMillis();
+
+        private Entry(WebClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * 一次借用。解析出错、实例状态可疑时调用 invalidate()，归还时直接关闭该实例。
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean healthy = true;
+        private boolean released;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public WebClient getClient() {
+            return entry.client;
+        }
+
+        public void invalidate() {
+            healthy = false;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(entry, healthy);
+            }
+        }
+    }
+}
@@ -2,70 +2,12 @@ package wiki.xyh.utils;
 
 public class WsTextUtils {
 
+    /**
+     * 判断文本是否为乱码，按默认语言配置使用 MessScorer 抽样评分。
+     * 需要置信度时直接调用 MessScorer.score。
+     */
     public static boolean isMess(String text) {
-        if (text == null || text.isEmpty()) {
-            return true; // 空文本认为是乱码
-        }
-
-        int chsCount = 0; // 中文字符数
-        int notRec = 0;   // 不可识别字符数
-        int enCount = 0;  // 英文字符数
-        int numCount = 0; // 数字字符数
-        int symCount = 0; // 符号字符数
-        int length = 0;
-
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-
-            // 忽略空白和特殊空格、×
-            if (Character.isWhitespace(c) || c == '\u00A0' || c == '×') {
-                continue;
-            }
-
-            length++;
-
-            if (isChinese(c)) {
-                chsCount++;
-            } else if (isEnglish(c)) {
-                enCount++;
-            } else if (isNumber(c)) {
-                numCount++;
-            } else if (isSymbol(c)) {
-                symCount++;
-            } else {
-                notRec++;
-            }
-        }
-
-        // 判断是否为乱码
-        return length * 0.8 < enCount ||
-                length * 0.1 < notRec ||
-                (length * 0.5 > chsCount && (numCount + symCount) < chsCount) ||
-                length * 0.4 > chsCount ||
-                length * 0.8 < numCount ||
-                length * 0.8 < symCount;
-    }
-
-    private static boolean isChinese(char c) {
-        Character.UnicodeBlock ub = Character.UnicodeBlock.of(c);
-        return ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
-                || ub == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
-                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
-                || ub == Character.UnicodeBlock.GENERAL_PUNCTUATION
-                || ub == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
-                || ub == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS;
-    }
-
-    private static boolean isEnglish(char c) {
-        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
-    }
-
-    private static boolean isNumber(char c) {
-        return (c >= '0' && c <= '9');
-    }
-
-    private static boolean isSymbol(char c) {
-        return !isChinese(c) && !isEnglish(c) && !isNumber(c);
+        return MessScorer.score(text).isMess();
     }
 }
 
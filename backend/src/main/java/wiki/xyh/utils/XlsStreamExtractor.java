@@ -0,0 +1,272 @@
+package wiki.xyh.utils;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: XLS 流式提取。基于 HSSFEventFactory 的记录监听，按记录顺序读取所有工作表的
+ *               共享字符串（SST）、数字、布尔值以及公式的缓存结果，不构建 HSSFWorkbook。
+ *               数字按单元格格式格式化，输出格式与 XlsxStreamExtractor 一致：单元格之间制表符，每行一个换行，
+ *               工作表之间空一行；行数 / 单元格数达到 SheetLimits 上限时中止读取。
+ */
+public final class XlsStreamExtractor {
+
+    private XlsStreamExtractor() {
+    }
+
+    /**
+     * 按默认上限提取。
+     */
+    public static String extract(POIFSFileSystem fs) throws Exception {
+        return extract(fs, SheetLimits.getDefault());
+    }
+
+    /**
+     * 提取工作簿中所有工作表的文本，调用方负责关闭 fs。
+     *
+     * @param fs     已打开的 OLE2 文件系统
+     * @param limits 行数 / 单元格数上限
+     * @return 文本
+     */
+    public static String extract(POIFSFileSystem fs, SheetLimits limits) throws Exception {
+        return extract(fs, limits, new ExtractContext());
+    }
+
+    /**
+     * 同上，每行开始时检查提取预算（字符数 / 耗时），达到上限或 limits 时中止并在 context 上标记截断。
+     */
+    public static String extract(POIFSFileSystem fs, SheetLimits limits, ExtractContext context) throws Exception {
+        RecordCollector collector = new RecordCollector(limits, context);
+        HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(collector);
+        new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+        return collector.out.toString();
+    }
+
+    /**
+     * 按记录顺序收集单元格文本。同一行的单元格记录连续出现，行号变化即换行。
+     */
+    private static final class RecordCollector extends AbortableHSSFListener {
+
+        private static final short CONTINUE = 0;
+        private static final short ABORT = 1;
+
+        /**
+         * FormulaRecord.getCachedResultType 返回的类型码（BIFF8 规范，与 CellType 的旧编码一致，
+         * CellType.getCode 在 POI 4.1 中已废弃）
+         */
+        private static final int CACHED_STRING = 1;
+        private static final int CACHED_BOOLEAN = 4;
+        private static final int CACHED_ERROR = 5;
+
+        private final StringBuilder out = new StringBuilder(4096);
+        private final SheetLimits limits;
+        private final ExtractContext context;
+
+        /**
+         * 只用来跟踪 FORMAT / XF 记录并格式化数字，不转发记录
+         */
+        private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(new HSSFListener() {
+            @Override
+            public void processRecord(Record record) {
+                // 不需要转发
+            }
+        });
+
+        private SSTRecord sst;
+        private boolean inWorksheet;
+        private int sheets;
+        private int currentRow = -1;
+        private int rows;
+        private int cells;
+
+        /**
+         * 公式结果为字符串时，值在紧随其后的 StringRecord 中
+         */
+        private boolean pendingFormulaString;
+
+        private RecordCollector(SheetLimits limits, ExtractContext context) {
+            this.limits = limits;
+            this.context = context;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            formats.processRecordInternally(record);
+
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    BOFRecord bof = (BOFRecord) record;
+                    if (bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                        inWorksheet = true;
+                        currentRow = -1;
+                        if (sheets++ > 0 && out.length() > 0) {
+                            out.append('\n');
+                        }
+                    } else if (bof.getType() != BOFRecord.TYPE_WORKBOOK) {
+                        // 图表、宏表等子流中的记录不计入正文
+                        inWorksheet = false;
+                    }
+                    return CONTINUE;
+                case EOFRecord.sid:
+                    flushPendingFormula();
+                    if (inWorksheet && currentRow >= 0) {
+                        out.append('\n');
+                    }
+                    inWorksheet = false;
+                    currentRow = -1;
+                    return CONTINUE;
+                case SSTRecord.sid:
+                    sst = (SSTRecord) record;
+                    return CONTINUE;
+                default:
+                    break;
+            }
+            if (!inWorksheet) {
+                return CONTINUE;
+            }
+
+            switch (record.getSid()) {
+                case LabelSSTRecord.sid: {
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    String value = sst == null ? "" : sst.getString(label.getSSTIndex()).getString();
+                    return cell(label, value);
+                }
+                case LabelRecord.sid: {
+                    LabelRecord label = (LabelRecord) record;
+                    return cell(label, label.getValue());
+                }
+                case NumberRecord.sid: {
+                    NumberRecord number = (NumberRecord) record;
+                    return cell(number, formatNumber(number, number.getValue()));
+                }
+                case BoolErrRecord.sid: {
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    String value = boolErr.isBoolean()
+                            ? (boolErr.getBooleanValue() ? "TRUE" : "FALSE")
+                            : FormulaError.forInt(boolErr.getErrorValue()).getString();
+                    return cell(boolErr, value);
+                }
+                case FormulaRecord.sid:
+                    return formula((FormulaRecord) record);
+                case StringRecord.sid:
+                    if (pendingFormulaString) {
+                        pendingFormulaString = false;
+                        appendValue(((StringRecord) record).getString());
+                    }
+                    return CONTINUE;
+                default:
+                    return CONTINUE;
+            }
+        }
+
+        /**
+         * 公式取缓存结果：数字按格式输出，字符串等待后续 StringRecord。
+         */
+        private short formula(FormulaRecord formula) {
+            if (startCell(formula) == ABORT) {
+                return ABORT;
+            }
+            int type = formula.getCachedResultType();
+            if (type == CACHED_STRING) {
+                if (formula.hasCachedResultString()) {
+                    pendingFormulaString = true;
+                } else {
+                    appendValue("");
+                }
+            } else if (type == CACHED_BOOLEAN) {
+                appendValue(formula.getCachedBooleanValue() ? "TRUE" : "FALSE");
+            } else if (type == CACHED_ERROR) {
+                appendValue(FormulaError.forInt(formula.getCachedErrorValue()).getString());
+            } else {
+                appendValue(formatNumber(formula, formula.getValue()));
+            }
+            return CONTINUE;
+        }
+
+        /**
+         * 常规（General）格式按 Excel 的显示规则直接转换，省去 DataFormatter 每次的日期格式正则判断
+         * 与 DecimalFormat 开销（大表中绝大多数数字单元格都是常规格式）；其余按单元格格式格式化。
+         */
+        private String formatNumber(CellValueRecordInterface record, double value) {
+            if (formats.getFormatIndex(record) == 0) {
+                if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                    return Long.toString((long) value);
+                }
+                return NumberToTextConverter.toText(value);
+            }
+            return formats.formatNumberDateCell(record);
+        }
+
+        private short cell(CellValueRecordInterface record, String value) {
+            if (startCell(record) == ABORT) {
+                return ABORT;
+            }
+            appendValue(value);
+            return CONTINUE;
+        }
+
+        /**
+         * 行号变化时换行并计数，检查上限。
+         */
+        private short startCell(CellValueRecordInterface record) {
+            flushPendingFormula();
+            if (record.getRow() != currentRow) {
+                if (rows >= limits.getMaxRows()) {
+                    context.markTruncated();
+                    return ABORT;
+                }
+                if (context.shouldStop(out.length())) {
+                    return ABORT;
+                }
+                if (currentRow >= 0) {
+                    out.append('\n');
+                }
+                currentRow = record.getRow();
+                rows++;
+            }
+            if (cells >= limits.getMaxCells()) {
+                context.markTruncated();
+                return ABORT;
+            }
+            cells++;
+            return CONTINUE;
+        }
+
+        /**
+         * 缺少 StringRecord 的字符串公式按空值输出，保持列对齐。
+         */
+        private void flushPendingFormula() {
+            if (pendingFormulaString) {
+                pendingFormulaString = false;
+                appendValue("");
+            }
+        }
+
+        private void appendValue(String value) {
+            if (value != null) {
+                out.append(value.trim());
+            }
+            out.append('\t');
+        }
+    }
+}
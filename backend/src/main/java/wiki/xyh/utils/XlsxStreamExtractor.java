@@ -0,0 +1,140 @@
+package wiki.xyh.utils;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: XLSX 流式提取。基于 XSSFReader + 共享字符串表 + SAX 逐行读取所有工作表，
+ *               不构建 XSSFWorkbook（其堆占用可达文件大小的 10~50 倍），内存只有共享字符串表与输出文本。
+ *               单元格取格式化后的显示值（公式取缓存结果），单元格之间以制表符分隔，每行一个换行，工作表之间空一行；
+ *               行数 / 单元格数达到 SheetLimits 上限时停止读取。
+ */
+public final class XlsxStreamExtractor {
+
+    private XlsxStreamExtractor() {
+    }
+
+    /**
+     * 按默认上限提取。
+     */
+    public static String extract(OPCPackage pkg) throws Exception {
+        return extract(pkg, SheetLimits.getDefault());
+    }
+
+    /**
+     * 提取工作簿中所有工作表的文本，调用方负责关闭 pkg。
+     *
+     * @param pkg    已打开的 OPC 包
+     * @param limits 行数 / 单元格数上限
+     * @return 文本
+     */
+    public static String extract(OPCPackage pkg, SheetLimits limits) throws Exception {
+        return extract(pkg, limits, new ExtractContext());
+    }
+
+    /**
+     * 同上，每行开始时检查提取预算（字符数 / 耗时），达到上限或 limits 时停止并在 context 上标记截断。
+     */
+    public static String extract(OPCPackage pkg, SheetLimits limits, ExtractContext context) throws Exception {
+        // 不读取注音（phonetic run），与单元格显示值一致
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+        XSSFReader reader = new XSSFReader(pkg);
+        StylesTable styles = reader.getStylesTable();
+        DataFormatter formatter = new DataFormatter();
+
+        SheetCollector collector = new SheetCollector(limits, context);
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream sheet = sheets.next()) {
+                if (collector.out.length() > 0) {
+                    collector.out.append('\n');
+                }
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, collector, formatter, false));
+                parser.parse(new InputSource(sheet));
+            } catch (LimitReachedException e) {
+                break;
+            }
+        }
+        return collector.out.toString();
+    }
+
+    /**
+     * 逐行收集单元格文本。
+     */
+    private static final class SheetCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final StringBuilder out = new StringBuilder(4096);
+        private final SheetLimits limits;
+        private final ExtractContext context;
+        private int rows;
+        private int cells;
+
+        private SheetCollector(SheetLimits limits, ExtractContext context) {
+            this.limits = limits;
+            this.context = context;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            if (rows >= limits.getMaxRows()) {
+                context.markTruncated();
+                throw LimitReachedException.INSTANCE;
+            }
+            if (context.shouldStop(out.length())) {
+                throw LimitReachedException.INSTANCE;
+            }
+            rows++;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            out.append('\n');
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cells >= limits.getMaxCells()) {
+                context.markTruncated();
+                throw LimitReachedException.INSTANCE;
+            }
+            cells++;
+            if (formattedValue != null) {
+                out.append(formattedValue.trim());
+            }
+            out.append('\t');
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+            // 页眉页脚不计入正文
+        }
+    }
+
+    /**
+     * 达到上限时中断 SAX 解析，不填充堆栈。
+     */
+    private static final class LimitReachedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final LimitReachedException INSTANCE = new LimitReachedException();
+
+        private LimitReachedException() {
+            super("表格行数、单元格数或提取预算达到上限", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package wiki.xyh.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Author: XYH
+ * @Date: 2026-10-17
+ * @Description: 基于 ZIP 中央目录的格式嗅探。只读取文件末尾的 EOCD 记录和中央目录里的条目名，
+ *               不解压任何条目、不拷贝数据，一次遍历即可区分 OFD / DOCX / XLSX / PPTX / EPUB，
+ *               耗时只与条目数量有关，与文档大小无关。
+ */
+public final class ZipSniffer {
+
+    private static final int SIG_LOCAL = 0x04034b50;
+    private static final int SIG_CENTRAL = 0x02014b50;
+    private static final int SIG_EOCD = 0x06054b50;
+    private static final int SIG_ZIP64_LOCATOR = 0x07064b50;
+    private static final int SIG_ZIP64_EOCD = 0x06064b50;
+
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    /**
+     * 中央目录损坏时按本地文件头顺序扫描的最大条目数
+     */
+    private static final int MAX_LOCAL_SCAN_ENTRIES = 64;
+
+    private static final byte[] OFD_XML = ascii("OFD.xml");
+    private static final byte[] WORD_DOCUMENT = ascii("word/document.xml");
+    private static final byte[] XL_WORKBOOK = ascii("xl/workbook.xml");
+    private static final byte[] PPT_PRESENTATION = ascii("ppt/presentation.xml");
+    private static final byte[] WORD_DIR = ascii("word/");
+    private static final byte[] XL_DIR = ascii("xl/");
+    private static final byte[] PPT_DIR = ascii("ppt/");
+    private static final byte[] EPUB_MIMETYPE = ascii("mimetype");
+    private static final byte[] EPUB_CONTAINER = ascii("META-INF/container.xml");
+
+    // 嗅探过程中收集到的特征位
+    private static final int F_OFD = 1;
+    private static final int F_WORD_MAIN = 1 << 1;
+    private static final int F_XL_MAIN = 1 << 2;
+    private static final int F_PPT_MAIN = 1 << 3;
+    private static final int F_WORD_DIR = 1 << 4;
+    private static final int F_XL_DIR = 1 << 5;
+    private static final int F_PPT_DIR = 1 << 6;
+    private static final int F_EPUB_MIMETYPE = 1 << 7;
+    private static final int F_EPUB_CONTAINER = 1 << 8;
+
+    private ZipSniffer() {
+    }
+
+    /**
+     * 嗅探 ZIP 包的具体格式。
+     *
+     * @param bytes 文件内容
+     * @return OFD / DOCX / XLSX / PPTX / EPUB，无法识别时返回 UNKNOWN
+     */
+    public static FileTypeDetector.FileType sniff(byte[] bytes) {
+        if (bytes == null) {
+            return FileTypeDetector.FileType.UNKNOWN;
+        }
+        return sniff(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 嗅探 ZIP 包的具体格式，buffer 可以是堆内数组，也可以是内存映射文件；不会改变 position。
+     *
+     * @param buf 文件内容
+     * @return OFD / DOCX / XLSX / PPTX / EPUB，无法识别时返回 UNKNOWN
+     */
+    public static FileTypeDetector.FileType sniff(ByteBuffer buf) {
+        int flags;
+        try {
+            flags = scanCentralDirectory(buf);
+            if (flags < 0) {
+                // 没有可用的中央目录（如被截断的上传），退化为顺序扫描本地文件头
+                flags = scanLocalHeaders(buf);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return FileTypeDetector.FileType.UNKNOWN;
+        }
+        return classify(flags);
+    }
+
+    private static FileTypeDetector.FileType classify(int flags) {
+        if ((flags & F_OFD) != 0) return FileTypeDetector.FileType.OFD;
+        if ((flags & F_EPUB_MIMETYPE) != 0 && (flags & F_EPUB_CONTAINER) != 0) return FileTypeDetector.FileType.EPUB;
+        if ((flags & F_WORD_MAIN) != 0) return FileTypeDetector.FileType.DOCX;
+        if ((flags & F_XL_MAIN) != 0) return FileTypeDetector.FileType.XLSX;
+        if ((flags & F_PPT_MAIN) != 0) return FileTypeDetector.FileType.PPTX;
+        if ((flags & F_WORD_DIR) != 0) return FileTypeDetector.FileType.DOCX;
+        if ((flags & F_XL_DIR) != 0) return FileTypeDetector.FileType.XLSX;
+        if ((flags & F_PPT_DIR) != 0) return FileTypeDetector.FileType.PPTX;
+        return FileTypeDetector.FileType.UNKNOWN;
+    }
+
+    /**
+     * 定位 EOCD 并遍历中央目录。
+     *
+     * @return 特征位；找不到合法中央目录时返回 -1
+     */
+    private static int scanCentralDirectory(ByteBuffer buf) {
+        int base = buf.position();
+        int limit = buf.limit();
+        int eocd = findEocd(buf, base, limit);
+        if (eocd < 0) {
+            return -1;
+        }
+
+        long entries = u16(buf, eocd + 10);
+        long cdOffset = u32(buf, eocd + 16);
+        if (entries == 0xFFFF || cdOffset == 0xFFFFFFFFL) {
+            int locator = eocd - 20;
+            if (locator >= base && le32(buf, locator) == SIG_ZIP64_LOCATOR) {
+                long zip64Eocd = le64(buf, locator + 8);
+                if (zip64Eocd < 0 || base + zip64Eocd + 56 > limit
+                        || le32(buf, (int) (base + zip64Eocd)) != SIG_ZIP64_EOCD) {
+                    return -1;
+                }
+                int p = (int) (base + zip64Eocd);
+                entries = le64(buf, p + 32);
+                cdOffset = le64(buf, p + 48);
+            }
+        }
+        if (cdOffset < 0 || base + cdOffset >= limit) {
+            return -1;
+        }
+
+        int flags = 0;
+        int p = (int) (base + cdOffset);
+        for (long i = 0; i < entries; i++) {
+            if (p + 46 > limit || le32(buf, p) != SIG_CENTRAL) {
+                return i == 0 ? -1 : flags;
+            }
+            int nameLen = u16(buf, p + 28);
+            int extraLen = u16(buf, p + 30);
+            int commentLen = u16(buf, p + 32);
+            int nameStart = p + 46;
+            if (nameStart + nameLen > limit) {
+                return flags;
+            }
+            flags |= matchName(buf, nameStart, nameLen);
+            if ((flags & (F_OFD | F_WORD_MAIN | F_XL_MAIN | F_PPT_MAIN)) != 0) {
+                // 主部件已经确定，无需继续遍历
+                return flags;
+            }
+            p = nameStart + nameLen + extraLen + commentLen;
+        }
+        return flags;
+    }
+
+    /**
+     * 从文件末尾向前查找 EOCD 签名（最多跨过 64KB 注释）。
+     */
+    private static int findEocd(ByteBuffer buf, int base, int limit) {
+        int stop = Math.max(base, limit - EOCD_MIN_SIZE - MAX_COMMENT_SIZE);
+        for (int p = limit - EOCD_MIN_SIZE; p >= stop; p--) {
+            if (le32(buf, p) == SIG_EOCD) {
+                int commentLen = u16(buf, p + 20);
+                if (p + EOCD_MIN_SIZE + commentLen <= limit) {
+                    return p;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 按顺序读取本地文件头中的条目名，遇到大小未知（使用 data descriptor）的条目即停止。
+     */
+    private static int scanLocalHeaders(ByteBuffer buf) {
+        int limit = buf.limit();
+        int p = buf.position();
+        int flags = 0;
+        for (int i = 0; i < MAX_LOCAL_SCAN_ENTRIES && p + 30 <= limit && le32(buf, p) == SIG_LOCAL; i++) {
+            int generalFlags = u16(buf, p + 6);
+            long compressedSize = u32(buf, p + 18);
+            int nameLen = u16(buf, p + 26);
+            int extraLen = u16(buf, p + 28);
+            int nameStart = p + 30;
+            if (nameStart + nameLen > limit) {
+                break;
+            }
+            flags |= matchName(buf, nameStart, nameLen);
+            if ((generalFlags & 0x08) != 0 || compressedSize == 0xFFFFFFFFL) {
+                break;
+            }
+            long next = (long) nameStart + nameLen + extraLen + compressedSize;
+            if (next > limit) {
+                break;
+            }
+            p = (int) next;
+        }
+        return flags;
+    }
+
+    private static int matchName(ByteBuffer buf, int start, int len) {
+        if (equalsAt(buf, start, len, OFD_XML)) return F_OFD;
+        if (equalsAt(buf, start, len, WORD_DOCUMENT)) return F_WORD_MAIN;
+        if (equalsAt(buf, start, len, XL_WORKBOOK)) return F_XL_MAIN;
+        if (equalsAt(buf, start, len, PPT_PRESENTATION)) return F_PPT_MAIN;
+        if (equalsAt(buf, start, len, EPUB_MIMETYPE)) return F_EPUB_MIMETYPE;
+        if (equalsAt(buf, start, len, EPUB_CONTAINER)) return F_EPUB_CONTAINER;
+        if (startsWithAt(buf, start, len, WORD_DIR)) return F_WORD_DIR;
+        if (startsWithAt(buf, start, len, XL_DIR)) return F_XL_DIR;
+        if (startsWithAt(buf, start, len, PPT_DIR)) return F_PPT_DIR;
+        return 0;
+    }
+
+    private static boolean equalsAt(ByteBuffer buf, int start, int len, byte[] expected) {
+        return len == expected.length && startsWithAt(buf, start, len, expected);
+    }
+
+    private static boolean startsWithAt(ByteBuffer buf, int start, int len, byte[] prefix) {
+        if (len < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u16(ByteBuffer buf, int index) {
+        return (buf.get(index) & 0xFF) | (buf.get(index + 1) & 0xFF) << 8;
+    }
+
+    private static long u32(ByteBuffer buf, int index) {
+        return (u16(buf, index) | (long) u16(buf, index + 2) << 16) & 0xFFFFFFFFL;
+    }
+
+    // ZIP 字段均为小端序；不修改调用方 buffer 的 order，因此手工拼装
+    private static int le32(ByteBuffer buf, int index) {
+        return (int) u32(buf, index);
+    }
+
+    private static long le64(ByteBuffer buf, int index) {
+        return u32(buf, index) | u32(buf, index + 4) << 32;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,51 @@
+package wiki.xyh.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.xyh.utils.EncodeUtils;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: EncodeUtils.detectEncoding 吞吐量基准，覆盖常见编码与不同文本大小。
+ *              探测只读前 64KB 采样窗口，超过该大小后吞吐量应保持不变。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"UTF-8", "GBK", "Big5", "UTF-16LE"})
+    public String charset;
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bytes = SyntheticCorpus.text(size, Charset.forName(charset));
+    }
+
+    @Benchmark
+    public String detectEncoding() {
+        return EncodeUtils.detectEncoding(bytes, true);
+    }
+}
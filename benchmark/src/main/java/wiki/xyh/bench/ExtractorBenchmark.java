@@ -0,0 +1,81 @@
+package wiki.xyh.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.xyh.bean.TypeAndContent;
+import wiki.xyh.utils.EncodeUtils;
+import wiki.xyh.utils.GetTypeAndContent;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: GetTypeAndContent 各解析器的吞吐量基准，语料由 SyntheticCorpus 按正文字节数生成。
+ *              extract 直接调用对应格式的解析方法，getFileTypeAndContent 走完整入口（编码探测 + 类型检测 + 解析）。
+ *              配合 -prof gc 查看每次调用的分配量（gc.alloc.rate.norm）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ExtractorBenchmark {
+
+    /**
+     * DOC 需要真实样本，默认不在列表中，运行时通过 -p format=DOC 显式指定
+     */
+    @Param({"PDF", "DOCX", "XLS", "XLSX", "HTML", "RTF", "OFD", "TXT"})
+    public String format;
+
+    @Param({"65536", "1048576", "8388608"})
+    public int size;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bytes = SyntheticCorpus.generate(format, size);
+    }
+
+    @Benchmark
+    public String extract() throws Exception {
+        switch (format) {
+            case "PDF":
+                return GetTypeAndContent.readPDF(bytes);
+            case "DOC":
+                return GetTypeAndContent.readWordDoc(bytes);
+            case "DOCX":
+                return GetTypeAndContent.readWordDocx(bytes);
+            case "XLS":
+                return GetTypeAndContent.readExcelXls(bytes, EncodeUtils.CODE_UTF8);
+            case "XLSX":
+                return GetTypeAndContent.readExcelXlsx(bytes);
+            case "HTML":
+                return GetTypeAndContent.extractHtmlText(bytes, EncodeUtils.CODE_UTF8);
+            case "RTF":
+                return GetTypeAndContent.readRTF(bytes, EncodeUtils.CODE_UTF8);
+            case "OFD":
+                return GetTypeAndContent.extractTextFromOFD(bytes);
+            default:
+                return GetTypeAndContent.readTXT(bytes, EncodeUtils.CODE_UTF8);
+        }
+    }
+
+    @Benchmark
+    public TypeAndContent getFileTypeAndContent() {
+        return GetTypeAndContent.getFileTypeAndContent(bytes);
+    }
+}
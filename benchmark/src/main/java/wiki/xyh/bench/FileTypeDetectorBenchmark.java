@@ -0,0 +1,103 @@
+package wiki.xyh.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.xyh.utils.FileTypeDetector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: FileTypeDetector.detectFileType 单次检测耗时基准。
+ *              同一格式在 1KB 到 64MB 之间变化文件大小，结果应基本持平，
+ *              证明检测只读文件头 / 中央目录 / 前几 KB，而不是整个文件。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileTypeDetectorBenchmark {
+
+    @Param({"1024", "1048576", "16777216", "67108864"})
+    public int size;
+
+    @Param({"PDF", "DOCX", "TXT", "BINARY"})
+    public String kind;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        switch (kind) {
+            case "PDF":
+                bytes = new byte[size];
+                random.nextBytes(bytes);
+                byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(header, 0, bytes, 0, header.length);
+                break;
+            case "DOCX":
+                bytes = docx(size, random);
+                break;
+            case "TXT":
+                bytes = text(size);
+                break;
+            default:
+                bytes = new byte[size];
+                random.nextBytes(bytes);
+                bytes[0] = 0x01;
+                break;
+        }
+    }
+
+    @Benchmark
+    public FileTypeDetector.FileType detectFileType() {
+        return FileTypeDetector.detectFileType(bytes);
+    }
+
+    /**
+     * 构造一个 ZIP：word/document.xml 加一个不压缩的大附件，使总大小接近 size。
+     */
+    private static byte[] docx(int size, Random random) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 1024);
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+            zip.write("<Types/>".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            zip.write("<w:document/>".getBytes(StandardCharsets.UTF_8));
+            zip.setLevel(0);
+            zip.putNextEntry(new ZipEntry("word/media/image1.bin"));
+            byte[] filler = new byte[Math.max(0, size - 512)];
+            random.nextBytes(filler);
+            zip.write(filler);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] text(int size) {
+        byte[] line = "这是一行用于基准测试的中文文本 plain text line 0123456789\n".getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = line[i % line.length];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,54 @@
+package wiki.xyh.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wiki.xyh.utils.WsTextUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: WsTextUtils.isMess 吞吐量基准。CLEAN 为正常中英文文本，
+ *              MOJIBAKE 为 UTF-8 字节按 ISO-8859-1 解码得到的乱码，对应 UNKNOWN 类型逐个尝试解析时的典型输入。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsMessBenchmark {
+
+    @Param({"CLEAN", "MOJIBAKE"})
+    public String kind;
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] bytes = SyntheticCorpus.text(size, StandardCharsets.UTF_8);
+        text = "CLEAN".equals(kind)
+                ? new String(bytes, StandardCharsets.UTF_8)
+                : new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public boolean isMess() {
+        return WsTextUtils.isMess(text);
+    }
+}
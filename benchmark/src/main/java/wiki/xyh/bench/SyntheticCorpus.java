@@ -0,0 +1,296 @@
+package wiki.xyh.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Author:XYH
+ * Date:2026-10-17
+ * Description: 基准测试用的合成语料生成器。size 表示文档中正文文本的字节数（按 UTF-8 计），
+ *              不同格式的文件大小因压缩 / 结构开销会有差异，但包含的文本量一致，便于横向比较各解析器。
+ *              DOC（Word 97-2003）无法用 POI 从零生成，需要通过 -Dcorpus.dir 提供真实样本。
+ */
+public final class SyntheticCorpus {
+
+    /**
+     * 真实样本目录的系统属性名，目录下按扩展名查找样本（目前只用于 DOC）
+     */
+    public static final String CORPUS_DIR_PROPERTY = "corpus.dir";
+
+    private static final String ZH_LINE = "这是一段用于基准测试的中文正文，包含常见汉字与标点符号。";
+    private static final String EN_LINE = "The quick brown fox jumps over the lazy dog 0123456789.";
+
+    /**
+     * Excel 每行的列数
+     */
+    private static final int EXCEL_COLUMNS = 8;
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * 生成指定格式的文档。
+     *
+     * @param format 格式：PDF / DOC / DOCX / XLS / XLSX / HTML / RTF / OFD / TXT
+     * @param size   正文文本字节数
+     * @return 文档字节
+     */
+    public static byte[] generate(String format, int size) throws IOException {
+        switch (format) {
+            case "PDF":
+                return pdf(size);
+            case "DOC":
+                return sample("doc");
+            case "DOCX":
+                return docx(size);
+            case "XLS":
+                return excel(new HSSFWorkbook(), size);
+            case "XLSX":
+                return excel(new XSSFWorkbook(), size);
+            case "HTML":
+                return html(size);
+            case "RTF":
+                return rtf(size);
+            case "OFD":
+                return ofd(size);
+            case "TXT":
+                return text(size, StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("不支持的格式: " + format);
+        }
+    }
+
+    /**
+     * 生成指定编码的纯文本，中英文混排。
+     */
+    public static byte[] text(int size, Charset charset) {
+        StringBuilder sb = new StringBuilder(size);
+        int bytes = 0;
+        for (int i = 0; bytes < size; i++) {
+            String line = line(i) + "\n";
+            sb.append(line);
+            bytes += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return sb.toString().getBytes(charset);
+    }
+
+    /**
+     * 第 i 行正文，中英文交替。
+     */
+    static String line(int i) {
+        return (i & 1) == 0 ? ZH_LINE + i : EN_LINE + i;
+    }
+
+    /**
+     * PDF 使用标准 14 字体，只能写 WinAnsi 字符，因此只生成英文行。
+     */
+    private static byte[] pdf(int size) throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        int linesPerPage = 50;
+        try (PDDocument document = new PDDocument()) {
+            int bytes = 0;
+            int line = 0;
+            while (bytes < size) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(14);
+                    content.newLineAtOffset(40, 800);
+                    for (int i = 0; i < linesPerPage && bytes < size; i++, line++) {
+                        String text = EN_LINE + line;
+                        content.showText(text);
+                        content.newLine();
+                        bytes += text.length() + 1;
+                    }
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] docx(int size) throws IOException {
+        try (XWPFDocument document = new XWPFDocument()) {
+            int bytes = 0;
+            for (int i = 0; bytes < size; i++) {
+                String text = line(i);
+                document.createParagraph().createRun().setText(text);
+                bytes += text.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 现有解析器只读第一个工作表，所有数据都写在第一个工作表中。
+     */
+    private static byte[] excel(Workbook workbook, int size) throws IOException {
+        try (Workbook wb = workbook) {
+            Sheet sheet = wb.createSheet("data");
+            int bytes = 0;
+            // XLS 单表最多 65536 行
+            int maxRows = wb instanceof HSSFWorkbook ? 65536 : 1048576;
+            for (int r = 0; bytes < size && r < maxRows; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < EXCEL_COLUMNS; c++) {
+                    if ((c & 1) == 0) {
+                        String text = (r & 1) == 0 ? "单元格" + r + "_" + c : "cell" + r + "_" + c;
+                        row.createCell(c).setCellValue(text);
+                        bytes += text.getBytes(StandardCharsets.UTF_8).length + 1;
+                    } else {
+                        row.createCell(c).setCellValue(r * 1.5 + c);
+                        bytes += 8;
+                    }
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            wb.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 正文段落之间穿插 script / style / 隐藏元素，覆盖 HTML 解析器的过滤分支。
+     */
+    private static byte[] html(int size) {
+        StringBuilder sb = new StringBuilder(size + 1024);
+        sb.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>基准测试</title>")
+                .append("<style>p{margin:0}</style></head><body>\n");
+        int bytes = 0;
+        for (int i = 0; bytes < size; i++) {
+            String text = line(i);
+            sb.append("<p class=\"c").append(i % 7).append("\">").append(text).append("</p>\n");
+            if (i % 50 == 0) {
+                sb.append("<script>var x = ").append(i).append(";</script>")
+                        .append("<div style=\"display:none\">hidden ").append(i).append("</div>\n");
+            }
+            bytes += text.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        sb.append("</body></html>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * RTF 中的中文使用 \\uN? 转义，文件本身是 ASCII。
+     */
+    private static byte[] rtf(int size) {
+        StringBuilder sb = new StringBuilder(size * 2);
+        sb.append("{\\rtf1\\ansi\\deff0{\\fonttbl{\\f0 Arial;}}\\f0\\fs20\n");
+        int bytes = 0;
+        for (int i = 0; bytes < size; i++) {
+            String text = line(i);
+            for (int k = 0; k < text.length(); k++) {
+                char ch = text.charAt(k);
+                if (ch < 0x80) {
+                    if (ch == '\\' || ch == '{' || ch == '}') {
+                        sb.append('\\');
+                    }
+                    sb.append(ch);
+                } else {
+                    sb.append("\\u").append((int) (short) ch).append('?');
+                }
+            }
+            sb.append("\\par\n");
+            bytes += text.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        sb.append('}');
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 按 GB/T 33190 的最小结构手工拼装 OFD 包：OFD.xml → Document.xml → 各页 Content.xml，
+     * 每页 40 行 TextObject。不依赖 ofdrw 的版式生成模块。
+     */
+    private static byte[] ofd(int size) throws IOException {
+        final int linesPerPage = 40;
+        final String ns = "xmlns:ofd=\"http://www.ofdspec.org/2016\"";
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 2);
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            put(zip, "OFD.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<ofd:OFD " + ns + " Version=\"1.0\" DocType=\"OFD\"><ofd:DocBody>"
+                    + "<ofd:DocInfo><ofd:DocID>bench</ofd:DocID></ofd:DocInfo>"
+                    + "<ofd:DocRoot>Doc_0/Document.xml</ofd:DocRoot></ofd:DocBody></ofd:OFD>");
+            put(zip, "Doc_0/PublicRes.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<ofd:Res " + ns + " BaseLoc=\"Res\"><ofd:Fonts>"
+                    + "<ofd:Font ID=\"1\" FontName=\"宋体\" FamilyName=\"宋体\"/></ofd:Fonts></ofd:Res>");
+
+            StringBuilder pages = new StringBuilder();
+            int id = 2;
+            int bytes = 0;
+            int line = 0;
+            for (int p = 0; bytes < size; p++) {
+                int pageId = id++;
+                pages.append("<ofd:Page ID=\"").append(pageId)
+                        .append("\" BaseLoc=\"Pages/Page_").append(p).append("/Content.xml\"/>");
+                StringBuilder content = new StringBuilder();
+                content.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ofd:Page ").append(ns)
+                        .append("><ofd:Content><ofd:Layer ID=\"").append(id++).append("\">");
+                for (int i = 0; i < linesPerPage && bytes < size; i++, line++) {
+                    String text = line(line);
+                    double y = 10 + i * 6;
+                    content.append("<ofd:TextObject ID=\"").append(id++)
+                            .append("\" Boundary=\"10 ").append(y).append(" 190 6\" Font=\"1\" Size=\"3.5\">")
+                            .append("<ofd:TextCode X=\"0\" Y=\"4\">").append(text).append("</ofd:TextCode>")
+                            .append("</ofd:TextObject>");
+                    bytes += text.getBytes(StandardCharsets.UTF_8).length + 1;
+                }
+                content.append("</ofd:Layer></ofd:Content></ofd:Page>");
+                put(zip, "Doc_0/Pages/Page_" + p + "/Content.xml", content.toString());
+            }
+
+            put(zip, "Doc_0/Document.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<ofd:Document " + ns + "><ofd:CommonData><ofd:MaxUnitID>" + id + "</ofd:MaxUnitID>"
+                    + "<ofd:PageArea><ofd:PhysicalBox>0 0 210 297</ofd:PhysicalBox></ofd:PageArea>"
+                    + "<ofd:PublicRes>PublicRes.xml</ofd:PublicRes></ofd:CommonData>"
+                    + "<ofd:Pages>" + pages + "</ofd:Pages></ofd:Document>");
+        }
+        return out.toByteArray();
+    }
+
+    private static void put(ZipOutputStream zip, String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(xml.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * 从 -Dcorpus.dir 指定的目录读取第一个指定扩展名的真实样本。
+     */
+    private static byte[] sample(String extension) throws IOException {
+        String dir = System.getProperty(CORPUS_DIR_PROPERTY);
+        if (dir == null || dir.isEmpty()) {
+            throw new IllegalStateException(extension.toUpperCase()
+                    + " 无法合成，请通过 -jvmArgsAppend -D" + CORPUS_DIR_PROPERTY + "=<目录> 提供样本");
+        }
+        File[] files = new File(dir).listFiles((d, name) -> name.toLowerCase().endsWith("." + extension));
+        if (files == null || files.length == 0) {
+            throw new IllegalStateException(dir + " 下没有 ." + extension + " 样本");
+        }
+        return Files.readAllBytes(files[0].toPath());
+    }
+}